@@ -0,0 +1,37 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
+import android.arch.lifecycle.LifecycleRegistry;
+
+/**
+ * Plain JVM LifecycleOwner backed by the same {@link LifecycleRegistry} Activities and Fragments use. There's no main 
+ * Looper here, so whichever thread runs a benchmark counts as the main thread.
+ */
+class BenchmarkLifecycleOwner implements LifecycleOwner {
+
+    static {
+        LifecycleBinder.setMainThread(new MainThread() {
+            @Override
+            public boolean isMainThread() {
+                return true;
+            }
+
+            @Override
+            public void post(Runnable task) {
+                task.run();
+            }
+        });
+    }
+
+    private final LifecycleRegistry lifecycle = new LifecycleRegistry(this);
+
+    @Override
+    public LifecycleRegistry getLifecycle() {
+        return lifecycle;
+    }
+
+    void handleLifecycleEvent(Lifecycle.Event event) {
+        lifecycle.handleLifecycleEvent(event);
+    }
+}
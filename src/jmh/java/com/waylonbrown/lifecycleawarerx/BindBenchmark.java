@@ -0,0 +1,115 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+
+import com.waylonbrown.lifecycleawarerx.buffer.BufferStrategy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Subscriber;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.Observer;
+import io.reactivex.Single;
+import io.reactivex.SingleObserver;
+
+/**
+ * Cost of binding a stream with {@link LifecycleBinder#bind} and compose() to a LifecycleOwner that's already active, 
+ * which includes subscribing it, compared to subscribing the same stream without the library and binding it with an
+ * {@link OwnerBinder}. Run with -prof gc for the bytes allocated per bind.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindBenchmark {
+
+    @State(Scope.Thread)
+    public static class ActiveOwner {
+
+        BenchmarkLifecycleOwner owner;
+        OwnerBinder binder;
+        // Typed by reactive type since the same BlackholeObserver would match more than one bind() overload
+        Observer<Integer> observer;
+        SingleObserver<Integer> singleObserver;
+        Subscriber<Integer> subscriber;
+        Observable<Integer> observable;
+        Single<Integer> single;
+        Flowable<Integer> flowable;
+        BindOptions drainAndRelease;
+
+        @Setup(Level.Trial)
+        public void setup(Blackhole blackhole) {
+            owner = new BenchmarkLifecycleOwner();
+            owner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+            binder = LifecycleBinder.forOwner(owner);
+            BlackholeObserver<Integer> blackholeObserver = new BlackholeObserver<>(blackhole);
+            observer = blackholeObserver;
+            singleObserver = blackholeObserver;
+            subscriber = blackholeObserver;
+            observable = Observable.just(1);
+            single = Single.just(1);
+            flowable = Flowable.just(1);
+            drainAndRelease = BindOptions.defaults().withBufferStrategy(BufferStrategy.drainAndRelease());
+        }
+    }
+
+    @Benchmark
+    public void observableWithoutBinding(ActiveOwner state) {
+        state.observable.subscribe(state.observer);
+    }
+
+    @Benchmark
+    public void observableBind(ActiveOwner state) {
+        state.observable.compose(LifecycleBinder.bind(state.owner, state.observer));
+    }
+
+    @Benchmark
+    public void observableBindForOwner(ActiveOwner state) {
+        state.observable.compose(state.binder.bind(state.observer));
+    }
+
+    @Benchmark
+    public void observableBindWithBufferStrategy(ActiveOwner state) {
+        state.observable.compose(LifecycleBinder.bind(state.owner, state.observer, state.drainAndRelease));
+    }
+
+    @Benchmark
+    public void singleWithoutBinding(ActiveOwner state) {
+        state.single.subscribe(state.singleObserver);
+    }
+
+    @Benchmark
+    public void singleBind(ActiveOwner state) {
+        state.single.compose(LifecycleBinder.bind(state.owner, state.singleObserver));
+    }
+
+    @Benchmark
+    public void singleBindForOwner(ActiveOwner state) {
+        state.single.compose(state.binder.bind(state.singleObserver));
+    }
+
+    @Benchmark
+    public void flowableWithoutBinding(ActiveOwner state) {
+        state.flowable.subscribe(state.subscriber);
+    }
+
+    @Benchmark
+    public void flowableBind(ActiveOwner state) {
+        state.flowable.compose(LifecycleBinder.bind(state.owner, state.subscriber));
+    }
+}
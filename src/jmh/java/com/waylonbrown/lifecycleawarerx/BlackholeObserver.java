@@ -0,0 +1,52 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import io.reactivex.MaybeObserver;
+import io.reactivex.Observer;
+import io.reactivex.SingleObserver;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Observer for every reactive type that hands what it receives to a {@link Blackhole}, so it can be reused across 
+ * benchmark invocations without its work being optimized away. Requests everything when used as a Subscriber.
+ */
+class BlackholeObserver<T> implements Observer<T>, SingleObserver<T>, MaybeObserver<T>, Subscriber<T> {
+
+    private final Blackhole blackhole;
+
+    BlackholeObserver(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void onSubscribe(Disposable d) {
+        blackhole.consume(d);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        s.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(T item) {
+        blackhole.consume(item);
+    }
+
+    @Override
+    public void onSuccess(T value) {
+        blackhole.consume(value);
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        blackhole.consume(e);
+    }
+
+    @Override
+    public void onComplete() {
+    }
+}
@@ -0,0 +1,78 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Subscriber;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Observer;
+import io.reactivex.subjects.PublishSubject;
+
+/**
+ * Cost of a STOP/START cycle with N streams bound to the same LifecycleOwner, where every stream keeps listening to 
+ * the lifecycle while it's running: pausing Observables, and Flowables, which stop requesting while stopped.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanOutBenchmark {
+
+    @State(Scope.Thread)
+    public static class BoundOwner {
+
+        @Param({"1", "10", "100"})
+        public int boundStreams;
+
+        BenchmarkLifecycleOwner pausingOwner;
+        BenchmarkLifecycleOwner flowableOwner;
+
+        @Setup(Level.Trial)
+        public void setup(Blackhole blackhole) {
+            pausingOwner = new BenchmarkLifecycleOwner();
+            flowableOwner = new BenchmarkLifecycleOwner();
+            BindOptions pausing = BindOptions.defaults().withPausing(Lifecycle.State.STARTED);
+            for (int i = 0; i < boundStreams; i++) {
+                PublishSubject<Integer> subject = PublishSubject.create();
+                Observer<Integer> observer = new BlackholeObserver<>(blackhole);
+                Subscriber<Integer> subscriber = new BlackholeObserver<>(blackhole);
+                subject.compose(LifecycleBinder.bind(pausingOwner, observer, pausing));
+                subject.toFlowable(BackpressureStrategy.BUFFER)
+                    .compose(LifecycleBinder.bind(flowableOwner, subscriber));
+            }
+            pausingOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+            flowableOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        }
+    }
+
+    @Benchmark
+    public LifecycleRegistry stopStartPausingObservables(BoundOwner state) {
+        state.pausingOwner.handleLifecycleEvent(Lifecycle.Event.ON_STOP);
+        state.pausingOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        return state.pausingOwner.getLifecycle();
+    }
+
+    @Benchmark
+    public LifecycleRegistry stopStartFlowables(BoundOwner state) {
+        state.flowableOwner.handleLifecycleEvent(Lifecycle.Event.ON_STOP);
+        state.flowableOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        return state.flowableOwner.getLifecycle();
+    }
+}
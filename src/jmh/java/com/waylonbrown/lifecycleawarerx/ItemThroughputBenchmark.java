@@ -0,0 +1,120 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+
+import com.waylonbrown.lifecycleawarerx.buffer.BufferStrategy;
+import com.waylonbrown.lifecycleawarerx.metrics.LifecycleRxStats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Subscriber;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.Observer;
+
+/**
+ * Per-item cost of a bound stream while the LifecycleOwner is active, which for Observables is the single fused 
+ * {@link LifecycleOperator} by default, compared to the same stream subscribed to directly and to the 
+ * cache().filter(FilterIfDestroyedPredicate) chain it replaced. Scores are per item, and with -prof gc the allocation 
+ * rate is also normalized per item.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(ItemThroughputBenchmark.ITEMS)
+public class ItemThroughputBenchmark {
+
+    static final int ITEMS = 1000;
+
+    @State(Scope.Thread)
+    public static class ActiveOwner {
+
+        BenchmarkLifecycleOwner owner;
+        // Typed by reactive type since the same BlackholeObserver would match more than one bind() overload
+        Observer<Integer> observer;
+        Subscriber<Integer> subscriber;
+        Observable<Integer> observable;
+        Flowable<Integer> flowable;
+        BindOptions unfused;
+        BindOptions drainAndRelease;
+        BindOptions pausing;
+        BindOptions metered;
+
+        @Setup(Level.Trial)
+        public void setup(Blackhole blackhole) {
+            owner = new BenchmarkLifecycleOwner();
+            owner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+            BlackholeObserver<Integer> blackholeObserver = new BlackholeObserver<>(blackhole);
+            observer = blackholeObserver;
+            subscriber = blackholeObserver;
+            observable = Observable.range(0, ITEMS);
+            flowable = Flowable.range(0, ITEMS);
+            unfused = BindOptions.defaults().withoutFusion();
+            drainAndRelease = BindOptions.defaults().withBufferStrategy(BufferStrategy.drainAndRelease());
+            pausing = BindOptions.defaults().withPausing(Lifecycle.State.STARTED);
+            metered = BindOptions.defaults().withMetrics(new LifecycleRxStats());
+        }
+    }
+
+    @Benchmark
+    public void observableRaw(ActiveOwner state) {
+        state.observable.subscribe(state.observer);
+    }
+
+    @Benchmark
+    public void observableBound(ActiveOwner state) {
+        state.observable.compose(LifecycleBinder.bind(state.owner, state.observer));
+    }
+
+    /**
+     * The chain bound before operators were fused, compare to {@link #observableBound} for what fusing saves.
+     */
+    @Benchmark
+    public void observableBoundUnfused(ActiveOwner state) {
+        state.observable.compose(LifecycleBinder.bind(state.owner, state.observer, state.unfused));
+    }
+
+    @Benchmark
+    public void observableBoundWithBufferStrategy(ActiveOwner state) {
+        state.observable.compose(LifecycleBinder.bind(state.owner, state.observer, state.drainAndRelease));
+    }
+
+    @Benchmark
+    public void observableBoundWithPausing(ActiveOwner state) {
+        state.observable.compose(LifecycleBinder.bind(state.owner, state.observer, state.pausing));
+    }
+
+    /**
+     * Streams are only metered when a listener is set, compare to {@link #observableBound} for the unmetered cost.
+     */
+    @Benchmark
+    public void observableBoundWithMetrics(ActiveOwner state) {
+        state.observable.compose(LifecycleBinder.bind(state.owner, state.observer, state.metered));
+    }
+
+    @Benchmark
+    public void flowableRaw(ActiveOwner state) {
+        state.flowable.subscribe(state.subscriber);
+    }
+
+    @Benchmark
+    public void flowableBound(ActiveOwner state) {
+        state.flowable.compose(LifecycleBinder.bind(state.owner, state.subscriber));
+    }
+}
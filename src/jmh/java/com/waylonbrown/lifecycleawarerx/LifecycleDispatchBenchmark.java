@@ -0,0 +1,141 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleObserver;
+import android.arch.lifecycle.LifecycleOwner;
+import android.arch.lifecycle.LifecycleRegistry;
+import android.arch.lifecycle.OnLifecycleEvent;
+import android.support.annotation.NonNull;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares how lifecycle events reach bound streams. The reflective baseline is what every bind used to register: two
+ * observers dispatched through {@link OnLifecycleEvent}. The dispatcher is the single {@link LifecycleDispatcher}
+ * registered per LifecycleOwner that calls its listeners directly.
+ */
+public class LifecycleDispatchBenchmark {
+
+    @State(Scope.Thread)
+    public static class BoundOwner {
+
+        @Param({"1", "10", "40"})
+        public int boundStreams;
+
+        BenchmarkLifecycleOwner reflectiveOwner;
+        BenchmarkLifecycleOwner dispatcherOwner;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            reflectiveOwner = new BenchmarkLifecycleOwner();
+            dispatcherOwner = new BenchmarkLifecycleOwner();
+            LifecycleDispatcher dispatcher = LifecycleDispatcher.get(dispatcherOwner);
+            for (int i = 0; i < boundStreams; i++) {
+                // Each bind used to add both a SubscribeWhenReadyObserver and a FilterIfDestroyedPredicate
+                reflectiveOwner.getLifecycle().addObserver(new ReflectiveObserver(reflectiveOwner));
+                reflectiveOwner.getLifecycle().addObserver(new ReflectiveObserver(reflectiveOwner));
+                dispatcher.addListener(new NoOpListener());
+            }
+            reflectiveOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+            dispatcherOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        }
+    }
+
+    /**
+     * Per-event dispatch cost, one STOP/START cycle per invocation.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public LifecycleRegistry stopStartReflective(BoundOwner state) {
+        state.reflectiveOwner.handleLifecycleEvent(Lifecycle.Event.ON_STOP);
+        state.reflectiveOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        return state.reflectiveOwner.getLifecycle();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public LifecycleRegistry stopStartDispatcher(BoundOwner state) {
+        state.dispatcherOwner.handleLifecycleEvent(Lifecycle.Event.ON_STOP);
+        state.dispatcherOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        return state.dispatcherOwner.getLifecycle();
+    }
+
+    /**
+     * First-bind cost in a fresh JVM, including scanning the observer class and any class initialization.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(20)
+    public LifecycleRegistry firstBindReflective() {
+        BenchmarkLifecycleOwner owner = new BenchmarkLifecycleOwner();
+        owner.getLifecycle().addObserver(new ReflectiveObserver(owner));
+        owner.getLifecycle().addObserver(new ReflectiveObserver(owner));
+        owner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        return owner.getLifecycle();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(20)
+    public LifecycleRegistry firstBindDispatcher() {
+        BenchmarkLifecycleOwner owner = new BenchmarkLifecycleOwner();
+        LifecycleDispatcher.get(owner).addListener(new NoOpListener());
+        owner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        return owner.getLifecycle();
+    }
+
+    /**
+     * Same shape as the observers the library used to register, dispatched reflectively by the Lifecycle.
+     */
+    static class ReflectiveObserver implements LifecycleObserver {
+
+        private final LifecycleOwner lifecycleOwner;
+        Lifecycle.State lastState;
+
+        ReflectiveObserver(LifecycleOwner lifecycleOwner) {
+            this.lifecycleOwner = lifecycleOwner;
+        }
+
+        @OnLifecycleEvent(Lifecycle.Event.ON_ANY)
+        void onStateChange() {
+            lastState = lifecycleOwner.getLifecycle().getCurrentState();
+        }
+    }
+
+    static class NoOpListener implements LifecycleDispatcher.Listener {
+
+        Lifecycle.State lastState;
+
+        @Override
+        public void onStateChange(@NonNull Lifecycle.State state) {
+            lastState = state;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import io.reactivex.Single;
+import io.reactivex.SingleObserver;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Time from binding a stream in onCreate() until its result is delivered, for each {@link SubscriptionMode}. The 
+ * upstream waits on I/O for about as long as the LifecycleOwner spends inflating its views between ON_CREATE and 
+ * ON_START, so subscribing early can overlap the two.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeToFirstContentBenchmark {
+
+    private static final long IO_NANOS = TimeUnit.MICROSECONDS.toNanos(2000);
+    /**
+     * Roughly 2 milliseconds of work on a desktop JVM.
+     */
+    private static final long INFLATION_TOKENS = 1000000;
+
+    @State(Scope.Thread)
+    public static class Binding {
+
+        @Param({"LAZY_ON_ACTIVE", "PREFETCH_ON_CREATED", "EAGER_ON_BIND"})
+        public SubscriptionMode subscriptionMode;
+
+        BindOptions bindOptions;
+        Single<Integer> upstream;
+
+        @Setup
+        public void setup() {
+            bindOptions = BindOptions.defaults().withSubscriptionMode(subscriptionMode);
+            upstream = Single.fromCallable(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    LockSupport.parkNanos(IO_NANOS);
+                    return 1;
+                }
+            }).subscribeOn(Schedulers.io());
+        }
+    }
+
+    @Benchmark
+    public void timeToFirstContent(Binding state) throws InterruptedException {
+        BenchmarkLifecycleOwner owner = new BenchmarkLifecycleOwner();
+        LatchObserver observer = new LatchObserver();
+        state.upstream.compose(LifecycleBinder.bind(owner, observer, state.bindOptions));
+
+        owner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+        Blackhole.consumeCPU(INFLATION_TOKENS);
+        owner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        observer.delivered.await();
+        owner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+    }
+
+    private static final class LatchObserver implements SingleObserver<Integer> {
+
+        final CountDownLatch delivered = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Disposable d) {
+        }
+
+        @Override
+        public void onSuccess(Integer value) {
+            delivered.countDown();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            delivered.countDown();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+
+import com.waylonbrown.lifecycleawarerx.buffer.BatchingObservable;
+import com.waylonbrown.lifecycleawarerx.buffer.BufferStrategy;
+import com.waylonbrown.lifecycleawarerx.reactivetypes.ObservableWithObserver;
+
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Observer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+
+/**
+ * Transformer that is used by the compose() method of your Observable to deliver its items in batches. Everything
+ * emitted while the {@link LifecycleOwner} isn't active is delivered as one batch once it is, after which items are
+ * delivered one per batch, or in batches of whatever was emitted during each window set in {@link BindOptions}.
+ *
+ * @param <T> stream inner type
+ */
+class BatchingLifecycleTransformer<T> implements ObservableTransformer<T, List<T>> {
+
+	@SuppressWarnings("rawtypes")
+	private static final Function SINGLETON_LIST = new Function<Object, List<Object>>() {
+		@Override
+		public List<Object> apply(final Object item) throws Exception {
+			return Collections.singletonList(item);
+		}
+	};
+
+	@NonNull
+	private final BindOptions bindOptions;
+	@NonNull
+	private final StreamWiring<T, Observable<List<T>>, Observer<List<T>>> wiring;
+	/**
+	 * Holds batches in a buffer that merges those held into one, or the stamped items of a metered stream.
+	 */
+	@NonNull
+	private final StreamWiring.BufferFactory<T, List<T>, List<StreamMeter.Stamped<T>>> bufferFactory =
+		new StreamWiring.BufferFactory<T, List<T>, List<StreamMeter.Stamped<T>>>() {
+			@Override
+			public Observable<List<T>> buffer(Observable<T> upstream) {
+				return bufferBatches(upstream);
+			}
+
+			@Override
+			public Observable<List<StreamMeter.Stamped<T>>> bufferStamped(
+					Observable<StreamMeter.Stamped<T>> upstream) {
+				return bufferBatches(upstream);
+			}
+
+			@Override
+			public Predicate<List<StreamMeter.Stamped<T>>> deliveredIfNotDestroyed(StreamMeter streamMeter) {
+				return streamMeter.batchDeliveredIfNotDestroyed(
+					new FilterIfDestroyedPredicate<List<StreamMeter.Stamped<T>>>(wiring.getDispatcher()));
+			}
+
+			@Override
+			public Function<List<StreamMeter.Stamped<T>>, List<T>> unstamp(StreamMeter streamMeter) {
+				return streamMeter.unstampBatch();
+			}
+		};
+
+	BatchingLifecycleTransformer(@NonNull final LifecycleOwner lifecycleOwner,
+								 @NonNull final ObservableWithObserver<List<T>> observableWithObserver,
+								 @NonNull final BindOptions bindOptions) {
+		this.bindOptions = bindOptions;
+		this.wiring = new StreamWiring<>(lifecycleOwner, observableWithObserver, bindOptions, false);
+	}
+
+	@Override
+	public ObservableSource<List<T>> apply(final Observable<T> upstream) {
+		Observable<List<T>> transformedStream = wiring.deliver(upstream, bufferFactory);
+		wiring.setReactiveType(transformedStream);
+		return transformedStream;
+	}
+
+	/**
+	 * @return the upstream's items in batches, starting with one for everything held until the observer subscribes.
+	 */
+	@SuppressWarnings("unchecked")
+	private <V> Observable<List<V>> bufferBatches(final Observable<V> upstream) {
+		Scheduler batchScheduler = bindOptions.getBatchScheduler();
+		Observable<List<V>> batches = batchScheduler != null
+			? upstream.buffer(bindOptions.getBatchWindow(), bindOptions.getBatchWindowUnit(), batchScheduler)
+			: upstream.map((Function<V, List<V>>) SINGLETON_LIST);
+
+		BufferStrategy bufferStrategy = bindOptions.getBufferStrategy();
+		BatchingObservable<V> batchingObservable = new BatchingObservable<>(batches,
+			bufferStrategy != null ? bufferStrategy : BufferStrategy.drainAndRelease());
+		wiring.pauseAndConnect(batchingObservable);
+		return batchingObservable;
+	}
+}
@@ -0,0 +1,312 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.waylonbrown.lifecycleawarerx.buffer.BufferStrategy;
+import com.waylonbrown.lifecycleawarerx.delivery.ChoreographerFrameClock;
+import com.waylonbrown.lifecycleawarerx.delivery.FrameClock;
+import com.waylonbrown.lifecycleawarerx.metrics.LifecycleRxMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+
+/**
+ * Optional settings for binding a stream with {@link LifecycleBinder}. Each with method returns a copy, so options can 
+ * be shared between binds.
+ */
+public final class BindOptions {
+
+    private static final BindOptions DEFAULTS = new BindOptions();
+
+    /**
+     * Used when pausing without a {@link BufferStrategy}, since pausing needs a bounded buffer to hold items in.
+     */
+    private static final BufferStrategy DEFAULT_PAUSING_BUFFER_STRATEGY = 
+        BufferStrategy.lastItems(Flowable.bufferSize());
+    /**
+     * Used when subscribing before the LifecycleOwner is active without a {@link BufferStrategy}, since the items 
+     * emitted in the meantime need somewhere to be held that isn't cache(), which would only subscribe once active.
+     */
+    private static final BufferStrategy DEFAULT_EARLY_SUBSCRIPTION_BUFFER_STRATEGY = BufferStrategy.drainAndRelease();
+
+    // Only assigned by the with methods, on the copy they return
+    @Nullable private BufferStrategy bufferStrategy;
+    @NonNull private DestroyMode destroyMode = DestroyMode.FILTER;
+    private int prefetch = Flowable.bufferSize();
+    @Nullable private Lifecycle.State pausedBelow;
+    private long batchWindow;
+    @NonNull private TimeUnit batchWindowUnit = TimeUnit.MILLISECONDS;
+    @Nullable private Scheduler batchScheduler;
+    @Nullable private FrameClock frameClock;
+    @Nullable private LifecycleRxMetrics metrics;
+    @Nullable private SubscriptionMode subscriptionMode;
+    @Nullable private ResumeScheduler resumeScheduler;
+    private int priority;
+    @Nullable private Function<?, ?> keySelector;
+    private boolean unfused;
+
+    private BindOptions() {
+    }
+
+    private BindOptions(@NonNull BindOptions other) {
+        this.bufferStrategy = other.bufferStrategy;
+        this.destroyMode = other.destroyMode;
+        this.prefetch = other.prefetch;
+        this.pausedBelow = other.pausedBelow;
+        this.batchWindow = other.batchWindow;
+        this.batchWindowUnit = other.batchWindowUnit;
+        this.batchScheduler = other.batchScheduler;
+        this.frameClock = other.frameClock;
+        this.metrics = other.metrics;
+        this.subscriptionMode = other.subscriptionMode;
+        this.resumeScheduler = other.resumeScheduler;
+        this.priority = other.priority;
+        this.keySelector = other.keySelector;
+        this.unfused = other.unfused;
+    }
+
+    /**
+     * @return options that cache items for the life of the stream and filter them out once the LifecycleOwner is 
+     *      destroyed, same as binding without options.
+     */
+    public static BindOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param bufferStrategy how many items emitted before the LifecycleOwner is active are held, see 
+     *      {@link BufferStrategy}. Null to cache every item for the life of the stream.
+     */
+    public BindOptions withBufferStrategy(@Nullable BufferStrategy bufferStrategy) {
+        BindOptions copy = new BindOptions(this);
+        copy.bufferStrategy = bufferStrategy;
+        return copy;
+    }
+
+    public BindOptions withDestroyMode(@NonNull DestroyMode destroyMode) {
+        BindOptions copy = new BindOptions(this);
+        copy.destroyMode = destroyMode;
+        return copy;
+    }
+
+    /**
+     * @param prefetch how many items a Flowable requests from upstream at a time while the LifecycleOwner is active.
+     */
+    public BindOptions withPrefetch(int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch must be positive but was " + prefetch);
+        }
+        BindOptions copy = new BindOptions(this);
+        copy.prefetch = prefetch;
+        return copy;
+    }
+
+    /**
+     * Pauses delivery every time the LifecycleOwner drops below the given state, not just until it first reaches it. 
+     * Items emitted while paused are held in the {@link BufferStrategy}'s buffer, or the last 
+     * {@link Flowable#bufferSize()} items if none is set, and delivered once the LifecycleOwner is back at that state.
+     * Flowables stop requesting items from upstream below that state instead.
+     * 
+     * @param pausedBelow either STARTED or RESUMED. Null to only wait for the LifecycleOwner to first be STARTED.
+     */
+    public BindOptions withPausing(@Nullable Lifecycle.State pausedBelow) {
+        if (pausedBelow != null && pausedBelow != Lifecycle.State.STARTED && pausedBelow != Lifecycle.State.RESUMED) {
+            throw new IllegalArgumentException("Can only pause below STARTED or RESUMED but was " + pausedBelow);
+        }
+        BindOptions copy = new BindOptions(this);
+        copy.pausedBelow = pausedBelow;
+        return copy;
+    }
+
+    /**
+     * Only used by {@link LifecycleBinder#bindBatched}. Once the items held while inactive have been delivered as one 
+     * batch, keeps gathering items for the given window and delivers each window as one batch, rather than delivering 
+     * items one at a time.
+     * 
+     * @param scheduler the window is timed on, which batches are then delivered on while the LifecycleOwner is active.
+     */
+    public BindOptions withBatchWindow(long window, @NonNull TimeUnit unit, @NonNull Scheduler scheduler) {
+        if (window <= 0L) {
+            throw new IllegalArgumentException("window must be positive but was " + window);
+        }
+        BindOptions copy = new BindOptions(this);
+        copy.batchWindow = window;
+        copy.batchWindowUnit = unit;
+        copy.batchScheduler = scheduler;
+        return copy;
+    }
+
+    /**
+     * Delivers items to the observer on the frame clock's thread, such as {@link ChoreographerFrameClock#mainThread()}, 
+     * instead of needing observeOn() before binding. Items emitted on that thread are delivered right away, and items 
+     * emitted on other threads are delivered together in the next frame rather than posted one by one. Not used for 
+     * Flowables, whose subscribers already control how many items they receive at a time.
+     * 
+     * @param frameClock null to deliver items on whichever thread they're emitted on.
+     */
+    public BindOptions withFrameClock(@Nullable FrameClock frameClock) {
+        BindOptions copy = new BindOptions(this);
+        copy.frameClock = frameClock;
+        return copy;
+    }
+
+    /**
+     * @param metrics told about this stream's items instead of the one set with 
+     *      {@link LifecycleBinder#setGlobalMetrics(LifecycleRxMetrics)}, see {@link LifecycleRxMetrics}.
+     */
+    public BindOptions withMetrics(@Nullable LifecycleRxMetrics metrics) {
+        BindOptions copy = new BindOptions(this);
+        copy.metrics = metrics;
+        return copy;
+    }
+
+    /**
+     * @param subscriptionMode when the upstream is subscribed to, see {@link SubscriptionMode}. Items held until the 
+     *      LifecycleOwner is active are kept in the {@link BufferStrategy}'s buffer, or all of them until they're 
+     *      delivered if none is set. Null for the default, which is lazy unless a BufferStrategy or pausing is set.
+     */
+    public BindOptions withSubscriptionMode(@Nullable SubscriptionMode subscriptionMode) {
+        BindOptions copy = new BindOptions(this);
+        copy.subscriptionMode = subscriptionMode;
+        return copy;
+    }
+
+    /**
+     * Only used with {@link #withPausing(Lifecycle.State)}. Rather than delivering what was held as soon as the 
+     * LifecycleOwner is back at the active state, leaves it to the scheduler, which spreads the streams sharing it over
+     * as many frames as it takes to stay within its budget.
+     *
+     * @param priority streams with a higher priority are delivered first, such as those behind what's on screen first.
+     */
+    public BindOptions withResumeScheduler(@Nullable ResumeScheduler resumeScheduler, int priority) {
+        BindOptions copy = new BindOptions(this);
+        copy.resumeScheduler = resumeScheduler;
+        copy.priority = priority;
+        return copy;
+    }
+
+    /**
+     * Only used with Observables bound with {@link LifecycleBinder#bind}. Rather than holding every item emitted while 
+     * the LifecycleOwner isn't active, holds only the latest one per key, in the order each key was first emitted in, 
+     * so what's held grows with the number of distinct keys rather than the number of updates. Used instead of a 
+     * {@link BufferStrategy}, and the stream is subscribed to as soon as it's bound like with one.
+     *
+     * @param keySelector such as the id of the entity each item is an update of. Null to hold every item.
+     */
+    public <T> BindOptions withLatestPerKey(@Nullable Function<? super T, ?> keySelector) {
+        BindOptions copy = new BindOptions(this);
+        copy.keySelector = keySelector;
+        return copy;
+    }
+
+    /**
+     * Binds with the chain of operators used before they were fused into a {@link LifecycleOperator}, even when 
+     * nothing else set needs it, so benchmarks can compare the two.
+     */
+    BindOptions withoutFusion() {
+        BindOptions copy = new BindOptions(this);
+        copy.unfused = true;
+        return copy;
+    }
+
+    /**
+     * @return the strategy set with {@link #withBufferStrategy(BufferStrategy)}, or the default one used for pausing if 
+     *      pausing without one, or for subscribing before the LifecycleOwner is active.
+     */
+    @Nullable
+    public BufferStrategy getBufferStrategy() {
+        if (bufferStrategy == null && pausedBelow != null) {
+            return DEFAULT_PAUSING_BUFFER_STRATEGY;
+        }
+        if (bufferStrategy == null && subscriptionMode != null && subscriptionMode != SubscriptionMode.LAZY_ON_ACTIVE) {
+            return DEFAULT_EARLY_SUBSCRIPTION_BUFFER_STRATEGY;
+        }
+        return bufferStrategy;
+    }
+
+    @NonNull
+    public DestroyMode getDestroyMode() {
+        return destroyMode;
+    }
+
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    @Nullable
+    public Lifecycle.State getPausedBelow() {
+        return pausedBelow;
+    }
+
+    /**
+     * @return the batch window set with {@link #withBatchWindow(long, TimeUnit, Scheduler)}, or 0 to deliver items one 
+     *      at a time once the first batch has been delivered.
+     */
+    public long getBatchWindow() {
+        return batchWindow;
+    }
+
+    @NonNull
+    public TimeUnit getBatchWindowUnit() {
+        return batchWindowUnit;
+    }
+
+    @Nullable
+    public Scheduler getBatchScheduler() {
+        return batchScheduler;
+    }
+
+    @Nullable
+    public FrameClock getFrameClock() {
+        return frameClock;
+    }
+
+    @Nullable
+    public LifecycleRxMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Nullable
+    public SubscriptionMode getSubscriptionMode() {
+        return subscriptionMode;
+    }
+
+    @Nullable
+    public ResumeScheduler getResumeScheduler() {
+        return resumeScheduler;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return the key selector set with {@link #withLatestPerKey(Function)}, which is only ever called with items of 
+     *      the stream bound with these options.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> Function<? super T, ?> getKeySelector() {
+        return (Function<? super T, ?>) keySelector;
+    }
+
+    /**
+     * @return the state at which the LifecycleOwner is considered active for this stream.
+     */
+    @NonNull
+    Lifecycle.State getActiveState() {
+        return pausedBelow != null ? pausedBelow : Lifecycle.State.STARTED;
+    }
+
+    /**
+     * @return false if set with {@link #withoutFusion()}.
+     */
+    boolean isFusionAllowed() {
+        return !unfused;
+    }
+}
@@ -0,0 +1,74 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.content.ComponentCallbacks2;
+import android.support.annotation.NonNull;
+
+import com.waylonbrown.lifecycleawarerx.buffer.Trimmable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Process-wide record of the buffers of bound streams, along with the dispatcher of the LifecycleOwner each belongs to,
+ * so they can all be trimmed at once when the system is low on memory. Buffers are only weakly held, so streams that
+ * have been let go of drop out of it on their own.
+ *
+ * Streams that cache() rather than use a buffer aren't in here, since cache() can't give back what it holds.
+ */
+final class BufferRegistry {
+
+    private static final Map<Trimmable, LifecycleDispatcher> BUFFERS = new WeakHashMap<>();
+
+    private BufferRegistry() {
+    }
+
+    static void register(@NonNull Trimmable buffer, @NonNull LifecycleDispatcher dispatcher) {
+        synchronized (BUFFERS) {
+            BUFFERS.put(buffer, dispatcher);
+        }
+    }
+
+    /**
+     * Drops expired items from every buffer. For buffers whose LifecycleOwner is stopped, also drops all but the
+     * latest item once memory is running low, and everything once it's critical or the app is in the background and
+     * likely to be killed next. Only hiding the UI isn't a sign of memory pressure, so that only drops expired items.
+     *
+     * @param level one of the {@link ComponentCallbacks2} TRIM_MEMORY levels.
+     * @return how many items were dropped.
+     */
+    static int trim(int level) {
+        List<Trimmable> buffers;
+        List<LifecycleDispatcher> dispatchers;
+        synchronized (BUFFERS) {
+            buffers = new ArrayList<>(BUFFERS.size());
+            dispatchers = new ArrayList<>(BUFFERS.size());
+            for (Map.Entry<Trimmable, LifecycleDispatcher> entry : BUFFERS.entrySet()) {
+                buffers.add(entry.getKey());
+                dispatchers.add(entry.getValue());
+            }
+        }
+        int keepWhileStopped = keepWhileStopped(level);
+        int trimmed = 0;
+        for (int i = 0; i < buffers.size(); i++) {
+            boolean stopped = !dispatchers.get(i).getCurrentState().isAtLeast(Lifecycle.State.STARTED);
+            // Buffers of started LifecycleOwners are about to be delivered, so only what's expired goes
+            trimmed += buffers.get(i).trim(stopped ? keepWhileStopped : Integer.MAX_VALUE);
+        }
+        return trimmed;
+    }
+
+    private static int keepWhileStopped(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+            || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return 0;
+        }
+        if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return 1;
+        }
+        // TRIM_MEMORY_RUNNING_MODERATE and TRIM_MEMORY_UI_HIDDEN
+        return Integer.MAX_VALUE;
+    }
+}
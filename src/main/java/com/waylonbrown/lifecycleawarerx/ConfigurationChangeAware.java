@@ -0,0 +1,18 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.app.Activity;
+import android.arch.lifecycle.LifecycleOwner;
+
+/**
+ * Implemented by a {@link LifecycleOwner} that isn't an {@link Activity} or support Fragment, to tell streams bound 
+ * with {@link LifecycleBinder#bindRetained} whether it's being destroyed only to be recreated, such as a fake owner in 
+ * tests.
+ */
+public interface ConfigurationChangeAware {
+
+    /**
+     * @return true if the LifecycleOwner is being destroyed to be recreated with a new configuration, checked when it's
+     *      destroyed.
+     */
+    boolean isChangingConfigurations();
+}
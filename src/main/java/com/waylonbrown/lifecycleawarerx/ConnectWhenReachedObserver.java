@@ -0,0 +1,73 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.waylonbrown.lifecycleawarerx.buffer.Connectable;
+
+/**
+ * Connects a buffer to its upstream once the {@link LifecycleOwner} reaches the state its {@link SubscriptionMode} asks
+ * for, or right away if it's already there. Never connects if the LifecycleOwner is destroyed first.
+ */
+class ConnectWhenReachedObserver implements LifecycleDispatcher.Listener {
+
+    @NonNull
+    private final Lifecycle.State connectState;
+    /**
+     * Once connected this isn't needed anymore, so it's set to null at that point.
+     */
+    @Nullable
+    private Connectable buffer;
+    @Nullable
+    private LifecycleDispatcher dispatcher;
+
+    private ConnectWhenReachedObserver(@NonNull LifecycleDispatcher dispatcher,
+                                       @NonNull Lifecycle.State connectState,
+                                       @NonNull Connectable buffer) {
+        this.dispatcher = dispatcher;
+        this.connectState = connectState;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Connects the buffer now or once the LifecycleOwner reaches the state the options' SubscriptionMode asks for.
+     * Without one set, buffers are connected right away like they always have been.
+     */
+    static void connect(@NonNull LifecycleDispatcher dispatcher, @NonNull BindOptions bindOptions,
+                        @NonNull Connectable buffer) {
+        SubscriptionMode subscriptionMode = bindOptions.getSubscriptionMode();
+        if (subscriptionMode == null || subscriptionMode == SubscriptionMode.EAGER_ON_BIND) {
+            buffer.connect();
+            return;
+        }
+        Lifecycle.State connectState = subscriptionMode == SubscriptionMode.PREFETCH_ON_CREATED
+            ? Lifecycle.State.CREATED
+            : bindOptions.getActiveState();
+        if (dispatcher.getCurrentState().isAtLeast(connectState)) {
+            buffer.connect();
+            return;
+        }
+        ConnectWhenReachedObserver observer = new ConnectWhenReachedObserver(dispatcher, connectState, buffer);
+        dispatcher.addListener(observer);
+        // Reached before or while being added, such as by a registration posted from another thread, which only
+        // connects once
+        observer.onStateChange(dispatcher.getCurrentState());
+    }
+
+    @Override
+    public synchronized void onStateChange(@NonNull Lifecycle.State state) {
+        if (buffer == null || state == Lifecycle.State.DESTROYED || !state.isAtLeast(connectState)) {
+            // The dispatcher drops this listener on its own once destroyed
+            return;
+        }
+        Connectable buffer = this.buffer;
+        this.buffer = null;
+        if (dispatcher != null) {
+            dispatcher.removeListener(this);
+            dispatcher = null;
+        }
+        buffer.connect();
+    }
+}
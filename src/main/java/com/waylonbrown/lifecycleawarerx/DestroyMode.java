@@ -0,0 +1,20 @@
+package com.waylonbrown.lifecycleawarerx;
+
+/**
+ * What happens to a bound stream once its {@link android.arch.lifecycle.LifecycleOwner} is destroyed.
+ */
+public enum DestroyMode {
+    /**
+     * Items are filtered out so they never reach the observer, but the upstream keeps running until it ends on its own.
+     */
+    FILTER,
+    /**
+     * The upstream is disposed so it stops doing any more work. The observer isn't called.
+     */
+    DISPOSE,
+    /**
+     * The upstream is disposed and the observer's onComplete() is called. Singles can't complete without an item, so 
+     * they're only disposed.
+     */
+    DISPOSE_AND_COMPLETE
+}
@@ -0,0 +1,101 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+
+import org.reactivestreams.Subscription;
+
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.functions.Consumer;
+import io.reactivex.subjects.PublishSubject;
+
+/**
+ * Holds on to the upstream subscription of a bound stream and disposes it as soon as the {@link LifecycleOwner} is 
+ * destroyed, so the upstream stops doing work rather than having its items filtered out by 
+ * {@link FilterIfDestroyedPredicate} forever. Also signals {@link #destroySignal()} for streams that should complete 
+ * at that point.
+ */
+class DisposeOnDestroyObserver implements LifecycleDispatcher.Listener {
+
+    private static final Object DESTROYED = new Object();
+
+    @NonNull
+    private final LifecycleDispatcher dispatcher;
+    @NonNull
+    private final CompositeDisposable upstreams = new CompositeDisposable();
+    @NonNull
+    private final PublishSubject<Object> destroySignal = PublishSubject.create();
+    @NonNull
+    private final Consumer<Disposable> addDisposable = new Consumer<Disposable>() {
+        @Override
+        public void accept(final Disposable disposable) throws Exception {
+            upstreams.add(disposable);
+        }
+    };
+    @NonNull
+    private final Consumer<Subscription> addSubscription = new Consumer<Subscription>() {
+        @Override
+        public void accept(final Subscription subscription) throws Exception {
+            upstreams.add(Disposables.fromSubscription(subscription));
+        }
+    };
+
+    DisposeOnDestroyObserver(@NonNull LifecycleDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+        dispatcher.addListener(this);
+        if (dispatcher.getCurrentState() == Lifecycle.State.DESTROYED) {
+            // Destroyed before or while being added, which this handles being told about twice
+            onStateChange(Lifecycle.State.DESTROYED);
+        }
+    }
+
+    <T> Observable<T> trackUpstream(@NonNull Observable<T> upstream) {
+        return upstream.doOnSubscribe(addDisposable);
+    }
+
+    <T> Single<T> trackUpstream(@NonNull Single<T> upstream) {
+        return upstream.doOnSubscribe(addDisposable);
+    }
+
+    <T> Maybe<T> trackUpstream(@NonNull Maybe<T> upstream) {
+        return upstream.doOnSubscribe(addDisposable);
+    }
+
+    <T> Flowable<T> trackUpstream(@NonNull Flowable<T> upstream) {
+        return upstream.doOnSubscribe(addSubscription);
+    }
+
+    /**
+     * Emits once, after the tracked upstreams have been disposed.
+     */
+    @NonNull
+    Observable<Object> destroySignal() {
+        return destroySignal;
+    }
+
+    /**
+     * Called once the bound stream terminates or its observer disposes it. Disposes the tracked upstreams, which are 
+     * either done already or have nobody left to emit to, and stops listening so the dispatcher doesn't hold on to 
+     * them until the LifecycleOwner is destroyed.
+     */
+    void release() {
+        dispatcher.removeListener(this);
+        upstreams.dispose();
+    }
+
+    @Override
+    public void onStateChange(@NonNull Lifecycle.State state) {
+        if (state == Lifecycle.State.DESTROYED) {
+            upstreams.dispose();
+            destroySignal.onNext(DESTROYED);
+            destroySignal.onComplete();
+        }
+    }
+}
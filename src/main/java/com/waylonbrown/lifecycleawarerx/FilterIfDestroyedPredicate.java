@@ -1,53 +1,30 @@
 package com.waylonbrown.lifecycleawarerx;
 
 import android.arch.lifecycle.Lifecycle;
-import android.arch.lifecycle.LifecycleObserver;
 import android.arch.lifecycle.LifecycleOwner;
-import android.arch.lifecycle.OnLifecycleEvent;
 import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
 
 import io.reactivex.functions.Predicate;
 
 /**
  * Decides whether to keep emitting items based on if the {@link LifecycleOwner} is destroyed or not.
  * 
- * Implements {@link LifecycleObserver} just so that it can remove the {@link LifecycleOwner} reference once it hits 
- * the destroyed state.
+ * Reads the state from the {@link LifecycleDispatcher} shared by every stream bound to the same LifecycleOwner, so it 
+ * doesn't need to observe the lifecycle itself. That's one volatile read per item, which is safe on whichever thread
+ * the upstream emits on.
  */
-public class FilterIfDestroyedPredicate<T> implements Predicate<T>, LifecycleObserver {
+public class FilterIfDestroyedPredicate<T> implements Predicate<T> {
 
-    @Nullable
-    private LifecycleOwner lifecycleOwner;
+    @NonNull
+    private final LifecycleDispatcher dispatcher;
 
-    FilterIfDestroyedPredicate(@NonNull LifecycleOwner lifecycleOwner) {
-        this.lifecycleOwner = lifecycleOwner;
-        this.lifecycleOwner.getLifecycle().addObserver(this);
+    FilterIfDestroyedPredicate(@NonNull LifecycleDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
     }
 
     @Override
     public boolean test(final T object) throws Exception {
-        // We've already removed the reference, don't emit anymore items.
-        if (lifecycleOwner == null) {
-            return false;
-        }
-        
-        boolean isDestroyed = lifecycleOwner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED;
-        if (isDestroyed) {
-            // This should have been handled in handleLifecycleEvent() at this point, but just being safe to not have
-            // memory leaks.
-            lifecycleOwner = null;
-        }
         // If not destroyed, predicate is true and emits streams items as normal. Otherwise it ends.
-        return !isDestroyed;
-    }
-    
-    @OnLifecycleEvent(Lifecycle.Event.ON_ANY)
-    void onStateChange() {
-        if (lifecycleOwner != null && lifecycleOwner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
-            // No memory leaks please
-            lifecycleOwner.getLifecycle().removeObserver(this);
-            lifecycleOwner = null;
-        }
+        return dispatcher.getCurrentState() != Lifecycle.State.DESTROYED;
     }
 }
@@ -0,0 +1,218 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Debug aid that checks bound streams really are let go of once their {@link LifecycleOwner} is destroyed. Set one with
+ * {@link LifecycleBinder#setLeakDetector} in debug builds or tests, and every stream bound from then on is tracked with
+ * weak references to its LifecycleOwner, observer and the stream handed back to compose(), along with where it was
+ * bound.
+ *
+ * Calling {@link #findLeaks()} runs the garbage collector and reports whichever of those are still reachable for
+ * streams whose LifecycleOwner has been destroyed, such as an observer still subscribed to an upstream that's kept
+ * running by a scheduler. Nothing is tracked while no detector is set.
+ */
+public final class LeakDetector {
+
+    private static final int GC_ATTEMPTS = 5;
+    private static final long GC_WAIT_MILLIS = 20L;
+
+    /**
+     * Something still reachable after the LifecycleOwner of the stream it belongs to was destroyed.
+     */
+    public static final class Leak {
+
+        public enum Kind {
+            OWNER, OBSERVER, STREAM
+        }
+
+        @NonNull private final Kind kind;
+        @NonNull private final String className;
+        @Nullable private final StackTraceElement callSite;
+
+        Leak(@NonNull Kind kind, @NonNull String className, @Nullable StackTraceElement callSite) {
+            this.kind = kind;
+            this.className = className;
+            this.callSite = callSite;
+        }
+
+        @NonNull
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the class of what's still reachable.
+         */
+        @NonNull
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * @return where the stream was bound, or null if that couldn't be told from the stack.
+         */
+        @Nullable
+        public StackTraceElement getCallSite() {
+            return callSite;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + className + " of the stream bound at " + callSite
+                + " is still reachable after its LifecycleOwner was destroyed";
+        }
+    }
+
+    @NonNull
+    private final List<Binding> bindings = new ArrayList<>();
+
+    /**
+     * Called as a stream is bound, on whichever thread that happens.
+     *
+     * @return the binding to hand the stream to once the transformer has been applied.
+     */
+    @NonNull
+    Binding track(@NonNull LifecycleOwner lifecycleOwner, @NonNull LifecycleDispatcher dispatcher,
+                  @NonNull Object observer) {
+        Binding binding = new Binding(lifecycleOwner, observer, callSite(new Throwable().getStackTrace()));
+        synchronized (bindings) {
+            bindings.add(binding);
+        }
+        dispatcher.addListener(binding);
+        if (dispatcher.getCurrentState() == Lifecycle.State.DESTROYED) {
+            // Destroyed before or while being added, in which case the dispatcher may never tell it
+            binding.onStateChange(Lifecycle.State.DESTROYED);
+        }
+        return binding;
+    }
+
+    /**
+     * Runs the garbage collector, then checks every stream whose LifecycleOwner has been destroyed. Streams that have
+     * been fully let go of aren't checked again. Blocks for a short while, so keep it off the main thread where
+     * possible.
+     *
+     * @return everything still reachable, which is empty if nothing leaked.
+     */
+    @NonNull
+    public List<Leak> findLeaks() {
+        for (int i = 0; i < GC_ATTEMPTS && hasReachable(); i++) {
+            Runtime.getRuntime().gc();
+            try {
+                Thread.sleep(GC_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            System.runFinalization();
+        }
+        List<Leak> leaks = new ArrayList<>();
+        synchronized (bindings) {
+            for (Iterator<Binding> iterator = bindings.iterator(); iterator.hasNext(); ) {
+                Binding binding = iterator.next();
+                if (binding.isCollected()) {
+                    iterator.remove();
+                } else if (binding.destroyed) {
+                    binding.addLeaks(leaks);
+                }
+            }
+        }
+        return leaks.isEmpty() ? Collections.<Leak>emptyList() : leaks;
+    }
+
+    private boolean hasReachable() {
+        synchronized (bindings) {
+            for (Binding binding : bindings) {
+                if (binding.destroyed && !binding.isCollected()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the first frame outside of the library's binding methods, which is where the stream was bound.
+     */
+    @Nullable
+    private static StackTraceElement callSite(@NonNull StackTraceElement[] stackTrace) {
+        for (StackTraceElement element : stackTrace) {
+            String className = element.getClassName();
+            if (!className.startsWith(LeakDetector.class.getName())
+                && !className.startsWith(LifecycleTransformer.class.getName())
+                && !className.startsWith(BatchingLifecycleTransformer.class.getName())
+                && !className.startsWith(StreamWiring.class.getName())
+                && !className.startsWith(LifecycleBinder.class.getName())
+                && !className.startsWith(OwnerBinder.class.getName())) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Only holds weak references, so tracking a stream never keeps anything of it around.
+     */
+    static final class Binding implements LifecycleDispatcher.Listener {
+
+        @NonNull private final WeakReference<LifecycleOwner> owner;
+        @NonNull private final String ownerClassName;
+        @NonNull private final WeakReference<Object> observer;
+        @NonNull private final String observerClassName;
+        @Nullable private final StackTraceElement callSite;
+        @Nullable private volatile WeakReference<Object> stream;
+        @Nullable private volatile String streamClassName;
+        volatile boolean destroyed;
+
+        Binding(@NonNull LifecycleOwner owner, @NonNull Object observer, @Nullable StackTraceElement callSite) {
+            this.owner = new WeakReference<>(owner);
+            this.ownerClassName = owner.getClass().getName();
+            this.observer = new WeakReference<>(observer);
+            this.observerClassName = observer.getClass().getName();
+            this.callSite = callSite;
+        }
+
+        /**
+         * @param stream what the transformer handed back to compose().
+         */
+        void setStream(@NonNull Object stream) {
+            this.streamClassName = stream.getClass().getName();
+            this.stream = new WeakReference<>(stream);
+        }
+
+        @Override
+        public void onStateChange(@NonNull Lifecycle.State state) {
+            if (state == Lifecycle.State.DESTROYED) {
+                // The dispatcher drops this listener on its own
+                destroyed = true;
+            }
+        }
+
+        boolean isCollected() {
+            WeakReference<Object> stream = this.stream;
+            return owner.get() == null && observer.get() == null && (stream == null || stream.get() == null);
+        }
+
+        void addLeaks(@NonNull List<Leak> leaks) {
+            if (owner.get() != null) {
+                leaks.add(new Leak(Leak.Kind.OWNER, ownerClassName, callSite));
+            }
+            if (observer.get() != null) {
+                leaks.add(new Leak(Leak.Kind.OBSERVER, observerClassName, callSite));
+            }
+            WeakReference<Object> stream = this.stream;
+            if (stream != null && stream.get() != null) {
+                leaks.add(new Leak(Leak.Kind.STREAM, streamClassName, callSite));
+            }
+        }
+    }
+}
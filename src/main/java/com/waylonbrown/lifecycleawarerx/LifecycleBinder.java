@@ -2,17 +2,29 @@ package com.waylonbrown.lifecycleawarerx;
 
 import android.arch.lifecycle.LifecycleOwner;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import com.waylonbrown.lifecycleawarerx.buffer.BufferStrategy;
+import com.waylonbrown.lifecycleawarerx.metrics.LifecycleRxMetrics;
+import com.waylonbrown.lifecycleawarerx.reactivetypes.FlowableWithObserver;
 import com.waylonbrown.lifecycleawarerx.reactivetypes.MaybeWithObserver;
 import com.waylonbrown.lifecycleawarerx.reactivetypes.ObservableWithObserver;
 import com.waylonbrown.lifecycleawarerx.reactivetypes.SingleWithObserver;
 
+import org.reactivestreams.Subscriber;
+
+import java.util.List;
+
+import io.reactivex.FlowableTransformer;
 import io.reactivex.MaybeObserver;
 import io.reactivex.MaybeTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
 import io.reactivex.ObservableTransformer;
 import io.reactivex.Observer;
 import io.reactivex.SingleObserver;
 import io.reactivex.SingleTransformer;
+import io.reactivex.functions.Function;
 
 /**
  * Contains the methods for each base reactive type to be statically called within your RxJava2 stream to
@@ -22,7 +34,15 @@ import io.reactivex.SingleTransformer;
  * 
  *      2) Ensure your stream doesn't emit items until the {@link LifecycleOwner} is active. Items received before the 
  * LifecycleOwner is active are cached, then emitted as soon as it is active. For Observables, you can use 
- * takeLast(1) before calling this to only have the latest item emitted as soon as the LifecycleOwner is active.
+ * takeLast(1) before calling this to only have the latest item emitted as soon as the LifecycleOwner is active, or 
+ * pass in a {@link BufferStrategy} to bound how many items are held in the meantime. Flowables aren't cached, they 
+ * instead stop requesting items from upstream until the LifecycleOwner is active again.
+ * 
+ * By default the upstream keeps running after the LifecycleOwner is destroyed with its items filtered out. Pass in 
+ * {@link BindOptions} with a {@link DestroyMode} to dispose it instead.
+ * 
+ * Streams can be bound on any thread. When bound off the main thread, registering with the Lifecycle and subscribing 
+ * once it's active are posted to the main thread, with every stream bound before that post runs sharing it.
  * 
  * NOTE WHEN USING THIS WITH SINGLES: When using this with a Single, if the LifecycleOwner is destroyed before it's 
  * ever ready (at the point of starting the stream), it will emit a NoSuchElementException since a Single can't be 
@@ -51,7 +71,82 @@ import io.reactivex.SingleTransformer;
  *      }));
  */
 public class LifecycleBinder {
+
+    @Nullable
+    private static volatile LifecycleRxMetrics globalMetrics;
+    @Nullable
+    private static volatile MainThread mainThread;
+    @Nullable
+    private static volatile LeakDetector leakDetector;
+
+    /**
+     * @param mainThread the thread lifecycle callbacks happen on, which streams bound on other threads finish binding 
+     *      on. Defaults to the main Looper, set this in tests that don't run on one.
+     */
+    public static void setMainThread(@NonNull MainThread mainThread) {
+        LifecycleBinder.mainThread = mainThread;
+    }
+
+    @NonNull
+    static MainThread mainThread() {
+        MainThread mainThread = LifecycleBinder.mainThread;
+        return mainThread != null ? mainThread : LooperMainThread.get();
+    }
+
+    /**
+     * @param metrics told about the items of every stream bound from now on, unless one is set in its 
+     *      {@link BindOptions}. Null to stop metering new binds, which then cost nothing extra.
+     */
+    public static void setGlobalMetrics(@Nullable LifecycleRxMetrics metrics) {
+        globalMetrics = metrics;
+    }
+
+    /**
+     * @param leakDetector tracks every stream bound from now on, for debug builds and tests. Null to stop tracking new 
+     *      binds, which then cost nothing extra.
+     */
+    public static void setLeakDetector(@Nullable LeakDetector leakDetector) {
+        LifecycleBinder.leakDetector = leakDetector;
+    }
+
+    @Nullable
+    static LeakDetector leakDetector() {
+        return leakDetector;
+    }
+
+    /**
+     * Gives back memory held by the buffers of bound streams, meant to be called from onTrimMemory() of your 
+     * Application. Items older than their {@link BufferStrategy}'s maximum age are always dropped. Streams whose 
+     * Activity/Fragment is stopped keep only their latest item once memory is running low, and drop everything they 
+     * hold once it's critical or the app is in the background, from TRIM_MEMORY_BACKGROUND up. TRIM_MEMORY_UI_HIDDEN 
+     * only drops expired items. Streams that cache() rather than use a BufferStrategy aren't affected.
+     *
+     * @param level the level passed to onTrimMemory(), one of the {@link android.content.ComponentCallbacks2} 
+     *      TRIM_MEMORY levels.
+     * @return how many held items were dropped.
+     */
+    public static int trimMemory(int level) {
+        return BufferRegistry.trim(level);
+    }
+
+    /**
+     * @return the metrics listener for a stream bound with these options, or null if it shouldn't be metered.
+     */
+    @Nullable
+    static LifecycleRxMetrics metricsFor(@NonNull BindOptions bindOptions) {
+        LifecycleRxMetrics metrics = bindOptions.getMetrics();
+        return metrics != null ? metrics : globalMetrics;
+    }
     
+    /**
+     * @return a binder for streams of this LifecycleOwner, cheaper than binding each with the methods here when a 
+     *      screen binds many of them. Keep it in a field of your Activity/Fragment.
+     */
+    @NonNull
+    public static OwnerBinder forOwner(@NonNull LifecycleOwner lifecycleOwner) {
+        return new OwnerBinder(lifecycleOwner);
+    }
+
     /**
      * @param lifecycleOwner which is your {@link android.arch.lifecycle.LifecycleActivity} or 
      *      {@link android.arch.lifecycle.LifecycleFragment}, which will eventually be compatible with the support 
@@ -66,13 +161,196 @@ public class LifecycleBinder {
         return new LifecycleTransformer<>(lifecycleOwner, new SingleWithObserver<>(singleObserver));
     }
 
+    /**
+     * @param bufferStrategy when set, the result is held only until it's delivered rather than cached for the life of 
+     *      the stream. The Single is subscribed to as soon as it's bound when using this.
+     */
+    public static <T> SingleTransformer<T, T> bind(@NonNull LifecycleOwner lifecycleOwner,
+                                                   @NonNull SingleObserver<T> singleObserver,
+                                                   @NonNull BufferStrategy bufferStrategy) {
+        return bind(lifecycleOwner, singleObserver, BindOptions.defaults().withBufferStrategy(bufferStrategy));
+    }
+
     public static <T> ObservableTransformer<T, T> bind(@NonNull LifecycleOwner lifecycleOwner,
                                                        @NonNull Observer<T> observer) {
         return new LifecycleTransformer<>(lifecycleOwner, new ObservableWithObserver<>(observer));
     }
 
+    /**
+     * @param bufferStrategy how many of the items emitted before the LifecycleOwner is active are held on to, and what 
+     *      happens to the rest. The Observable is subscribed to as soon as it's bound when using this.
+     */
+    public static <T> ObservableTransformer<T, T> bind(@NonNull LifecycleOwner lifecycleOwner,
+                                                       @NonNull Observer<T> observer,
+                                                       @NonNull BufferStrategy bufferStrategy) {
+        return bind(lifecycleOwner, observer, BindOptions.defaults().withBufferStrategy(bufferStrategy));
+    }
+
+    /**
+     * Holds only the latest item per key while the LifecycleOwner isn't active, for streams of updates such as chat 
+     * messages or order statuses by their id, where only the newest version of each matters. Once active, the held 
+     * items are delivered in the order each key was first emitted in. The Observable is subscribed to as soon as it's 
+     * bound when using this.
+     *
+     * @param keySelector such as the id of the entity each item is an update of.
+     */
+    public static <T> ObservableTransformer<T, T> bind(@NonNull LifecycleOwner lifecycleOwner,
+                                                       @NonNull Observer<T> observer,
+                                                       @NonNull Function<? super T, ?> keySelector) {
+        return bind(lifecycleOwner, observer, BindOptions.defaults().withLatestPerKey(keySelector));
+    }
+
     public static <T> MaybeTransformer<T, T> bind(@NonNull LifecycleOwner lifecycleOwner,
                                                   @NonNull MaybeObserver<T> observer) {
         return new LifecycleTransformer<>(lifecycleOwner, new MaybeWithObserver<>(observer));
     }
+
+    /**
+     * @param bufferStrategy when set, the result is held only until it's delivered rather than cached for the life of 
+     *      the stream. The Maybe is subscribed to as soon as it's bound when using this.
+     */
+    public static <T> MaybeTransformer<T, T> bind(@NonNull LifecycleOwner lifecycleOwner,
+                                                  @NonNull MaybeObserver<T> observer,
+                                                  @NonNull BufferStrategy bufferStrategy) {
+        return bind(lifecycleOwner, observer, BindOptions.defaults().withBufferStrategy(bufferStrategy));
+    }
+
+    /**
+     * Requests items from the Flowable in batches of {@link io.reactivex.Flowable#bufferSize()} while the LifecycleOwner is active,
+     * and stops requesting any more while it isn't.
+     */
+    public static <T> FlowableTransformer<T, T> bind(@NonNull LifecycleOwner lifecycleOwner,
+                                                     @NonNull Subscriber<T> subscriber) {
+        return new LifecycleTransformer<>(lifecycleOwner, new FlowableWithObserver<>(subscriber));
+    }
+
+    /**
+     * @param prefetch how many items are requested from the Flowable at a time while the LifecycleOwner is active.
+     */
+    public static <T> FlowableTransformer<T, T> bind(@NonNull LifecycleOwner lifecycleOwner,
+                                                     @NonNull Subscriber<T> subscriber,
+                                                     int prefetch) {
+        return bind(lifecycleOwner, subscriber, BindOptions.defaults().withPrefetch(prefetch));
+    }
+
+    /**
+     * @param bindOptions settings such as the {@link BufferStrategy} or {@link DestroyMode} to use for this stream.
+     */
+    public static <T> SingleTransformer<T, T> bind(@NonNull LifecycleOwner lifecycleOwner,
+                                                   @NonNull SingleObserver<T> singleObserver,
+                                                   @NonNull BindOptions bindOptions) {
+        return new LifecycleTransformer<>(lifecycleOwner, new SingleWithObserver<>(singleObserver), bindOptions);
+    }
+
+    public static <T> ObservableTransformer<T, T> bind(@NonNull LifecycleOwner lifecycleOwner,
+                                                       @NonNull Observer<T> observer,
+                                                       @NonNull BindOptions bindOptions) {
+        return new LifecycleTransformer<>(lifecycleOwner, new ObservableWithObserver<>(observer), bindOptions);
+    }
+
+    public static <T> MaybeTransformer<T, T> bind(@NonNull LifecycleOwner lifecycleOwner,
+                                                  @NonNull MaybeObserver<T> observer,
+                                                  @NonNull BindOptions bindOptions) {
+        return new LifecycleTransformer<>(lifecycleOwner, new MaybeWithObserver<>(observer), bindOptions);
+    }
+
+    public static <T> FlowableTransformer<T, T> bind(@NonNull LifecycleOwner lifecycleOwner,
+                                                     @NonNull Subscriber<T> subscriber,
+                                                     @NonNull BindOptions bindOptions) {
+        return new LifecycleTransformer<>(lifecycleOwner, new FlowableWithObserver<>(subscriber), bindOptions);
+    }
+
+    /**
+     * Delivers items in batches rather than one at a time. Everything emitted while the LifecycleOwner isn't active is 
+     * delivered as one List once it is, so your views can be updated once rather than once per missed item. Items 
+     * after that are delivered in Lists of one.
+     */
+    public static <T> ObservableTransformer<T, List<T>> bindBatched(@NonNull LifecycleOwner lifecycleOwner,
+                                                                    @NonNull Observer<List<T>> observer) {
+        return bindBatched(lifecycleOwner, observer, BindOptions.defaults());
+    }
+
+    /**
+     * @param bindOptions set {@link BindOptions#withBatchWindow} to keep delivering items in batches once the first 
+     *      one has been delivered. Items held while inactive are only bounded if a {@link BufferStrategy} is set.
+     */
+    public static <T> ObservableTransformer<T, List<T>> bindBatched(@NonNull LifecycleOwner lifecycleOwner,
+                                                                    @NonNull Observer<List<T>> observer,
+                                                                    @NonNull BindOptions bindOptions) {
+        return new BatchingLifecycleTransformer<>(lifecycleOwner, new ObservableWithObserver<>(observer), bindOptions);
+    }
+
+    /**
+     * Binds the observer to the stream shared by every bind with the same key, instead of its own, so that work like a 
+     * network or database request runs once for all of them. The upstream of the first bind with a key is used, and 
+     * its latest item is replayed to observers bound later. Once the LifecycleOwner of every bind with the key has 
+     * been destroyed, the upstream is disposed and the next bind with the key starts over with its own upstream.
+     *
+     * @param key anything with equals() and hashCode(), shared by every bind in the process.
+     * @param type type of the items, which every bind with the key must use while it's shared.
+     * @throws IllegalArgumentException when applied while the key is shared by a stream of another type.
+     */
+    public static <T> ObservableTransformer<T, T> bindShared(@NonNull LifecycleOwner lifecycleOwner,
+                                                             @NonNull Object key,
+                                                             @NonNull Class<T> type,
+                                                             @NonNull Observer<T> observer) {
+        return bindShared(lifecycleOwner, key, type, observer, BindOptions.defaults());
+    }
+
+    /**
+     * @param bindOptions the DestroyMode is at least {@link DestroyMode#DISPOSE}, since the upstream is no longer this 
+     *      observer's to keep running. If this is the first bind with the key, as many of the most recent items are 
+     *      replayed to observers bound later as its {@link BufferStrategy} holds.
+     */
+    public static <T> ObservableTransformer<T, T> bindShared(@NonNull LifecycleOwner lifecycleOwner,
+                                                             @NonNull Object key,
+                                                             @NonNull Class<T> type,
+                                                             @NonNull Observer<T> observer,
+                                                             @NonNull BindOptions bindOptions) {
+        return bindShared(lifecycleOwner, key, type, observer, bindOptions, false);
+    }
+
+    /**
+     * Same as {@link #bindShared(LifecycleOwner, Object, Class, Observer)}, except the stream keeps running while the 
+     * Activity is recreated for a configuration change such as a rotation. The new instance binding with the same key 
+     * gets the upstream that was already running rather than starting it over, along with its latest item.
+     * 
+     * Owners other than Activities and support Fragments can implement {@link ConfigurationChangeAware} for this.
+     */
+    public static <T> ObservableTransformer<T, T> bindRetained(@NonNull LifecycleOwner lifecycleOwner,
+                                                               @NonNull Object key,
+                                                               @NonNull Class<T> type,
+                                                               @NonNull Observer<T> observer) {
+        return bindRetained(lifecycleOwner, key, type, observer, BindOptions.defaults());
+    }
+
+    public static <T> ObservableTransformer<T, T> bindRetained(@NonNull LifecycleOwner lifecycleOwner,
+                                                               @NonNull Object key,
+                                                               @NonNull Class<T> type,
+                                                               @NonNull Observer<T> observer,
+                                                               @NonNull BindOptions bindOptions) {
+        return bindShared(lifecycleOwner, key, type, observer, bindOptions, true);
+    }
+
+    private static <T> ObservableTransformer<T, T> bindShared(@NonNull final LifecycleOwner lifecycleOwner,
+                                                              @NonNull final Object key,
+                                                              @NonNull final Class<T> type,
+                                                              @NonNull Observer<T> observer,
+                                                              @NonNull BindOptions bindOptions,
+                                                              final boolean retained) {
+        if (bindOptions.getDestroyMode() == DestroyMode.FILTER) {
+            // Otherwise the shared stream would keep a destroyed LifecycleOwner's observer for as long as it runs
+            bindOptions = bindOptions.withDestroyMode(DestroyMode.DISPOSE);
+        }
+        final BufferStrategy bufferStrategy = bindOptions.getBufferStrategy();
+        final LifecycleTransformer<T, Observable<T>, Observer<T>> transformer =
+            new LifecycleTransformer<>(lifecycleOwner, new ObservableWithObserver<>(observer), bindOptions);
+        return new ObservableTransformer<T, T>() {
+            @Override
+            public ObservableSource<T> apply(final Observable<T> upstream) {
+                return transformer.apply(SharedStreams.share(key, type, upstream,
+                    LifecycleDispatcher.get(lifecycleOwner), bufferStrategy, retained ? lifecycleOwner : null));
+            }
+        };
+    }
 }
@@ -0,0 +1,231 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.annotation.SuppressLint;
+import android.arch.lifecycle.GenericLifecycleObserver;
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleObserver;
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The one {@link LifecycleObserver} registered with a {@link LifecycleOwner}, no matter how many streams are bound to
+ * it. Each bound stream registers a {@link Listener} here instead, and state changes are fanned out to them, so the
+ * {@link Lifecycle} only has a single observer to sync on every event.
+ *
+ * Dispatchers are looked up through a weak map keyed by the LifecycleOwner, and remove themselves from it along with
+ * every listener once the LifecycleOwner is destroyed.
+ *
+ * The state is kept in a volatile field written on the main thread by each lifecycle callback, before the listeners
+ * are told about it, so that streams emitting on other threads can check it with a single volatile read instead of
+ * going through the {@link Lifecycle}, which isn't safe to read off the main thread. Everything the main thread did
+ * before a state change, such as tearing down views in onDestroy(), happens-before any read of that state, so an
+ * emitter that sees DESTROYED also sees the views as they were left. An item whose check already passed when the
+ * LifecycleOwner is destroyed on another thread can still be delivered, since nothing short of a lock could prevent
+ * that.
+ * 
+ * Implements {@link GenericLifecycleObserver} rather than using {@link android.arch.lifecycle.OnLifecycleEvent}, so the
+ * Lifecycle calls it directly instead of scanning the class for annotated methods and invoking them reflectively.
+ */
+@SuppressLint("RestrictedApi")
+class LifecycleDispatcher implements GenericLifecycleObserver {
+
+    /**
+     * Implemented by anything that needs to know when the LifecycleOwner of a bound stream changes state.
+     */
+    interface Listener {
+        void onStateChange(@NonNull Lifecycle.State state);
+    }
+
+    private static final Listener[] NO_LISTENERS = new Listener[0];
+    private static final Map<LifecycleOwner, LifecycleDispatcher> DISPATCHERS = new WeakHashMap<>();
+
+    /**
+     * Only held weakly since it's the key of the weak map, to remove this from the map by it once destroyed. Null for
+     * dispatchers handed out already destroyed, which aren't in the map.
+     */
+    @Nullable
+    private final WeakReference<LifecycleOwner> lifecycleOwner;
+    /**
+     * Not holding on to the LifecycleOwner itself since that's the key of the weak map. Removed once destroyed.
+     */
+    @Nullable
+    private Lifecycle lifecycle;
+    /**
+     * Only written on the main thread from lifecycle callbacks, read from any thread.
+     */
+    @NonNull
+    private volatile Lifecycle.State state;
+    @NonNull
+    private volatile Listener[] listeners = NO_LISTENERS;
+    /**
+     * Only used on the main thread.
+     */
+    private boolean registered;
+
+    /**
+     * @param lifecycle not read until {@link #register()}, which may happen later on the main thread.
+     */
+    private LifecycleDispatcher(@Nullable LifecycleOwner lifecycleOwner, @Nullable Lifecycle lifecycle) {
+        this.lifecycleOwner = lifecycleOwner != null ? new WeakReference<>(lifecycleOwner) : null;
+        this.lifecycle = lifecycle;
+        this.state = lifecycle != null ? Lifecycle.State.INITIALIZED : Lifecycle.State.DESTROYED;
+    }
+
+    /**
+     * Adds this as an observer of the Lifecycle, which then calls it back with the current state. Only called on the 
+     * main thread, once.
+     */
+    private void register() {
+        Lifecycle lifecycle = this.lifecycle;
+        if (registered || lifecycle == null) {
+            return;
+        }
+        registered = true;
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            // Destroyed before the registration posted from another thread got to run, so no events are coming
+            dispatch(Lifecycle.State.DESTROYED);
+            return;
+        }
+        lifecycle.addObserver(this);
+    }
+
+    /**
+     * Safe to call from any thread. Off the main thread the dispatcher is registered with its {@link Lifecycle} from a 
+     * task posted there, and reports INITIALIZED until then, so nothing bound to it is subscribed in the meantime.
+     *
+     * @return the dispatcher for this LifecycleOwner, which is registered with its Lifecycle the first time.
+     */
+    @NonNull
+    static LifecycleDispatcher get(@NonNull LifecycleOwner lifecycleOwner) {
+        Lifecycle lifecycle = lifecycleOwner.getLifecycle();
+        boolean onMainThread = MainThreadHandoff.isMainThread();
+        if (onMainThread && lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            // Won't get any more events, so hand out one that already acts destroyed
+            return new LifecycleDispatcher(null, null);
+        }
+        LifecycleDispatcher dispatcher;
+        boolean created = false;
+        synchronized (DISPATCHERS) {
+            dispatcher = DISPATCHERS.get(lifecycleOwner);
+            if (dispatcher == null) {
+                dispatcher = new LifecycleDispatcher(lifecycleOwner, lifecycle);
+                DISPATCHERS.put(lifecycleOwner, dispatcher);
+                created = true;
+            }
+        }
+        if (onMainThread) {
+            // Also finishes registering one created on another thread, rather than waiting on its post
+            dispatcher.register();
+        } else if (created) {
+            final LifecycleDispatcher pending = dispatcher;
+            MainThreadHandoff.post(new Runnable() {
+                @Override
+                public void run() {
+                    pending.register();
+                }
+            });
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Safe to call from any thread, see the class docs for what's guaranteed.
+     *
+     * @return the state of the LifecycleOwner as of its last lifecycle callback, which stays DESTROYED once it's been 
+     *      destroyed.
+     */
+    @NonNull
+    Lifecycle.State getCurrentState() {
+        return state;
+    }
+
+    synchronized void addListener(@NonNull Listener listener) {
+        if (lifecycle == null) {
+            // Already destroyed, there's nothing left to be told about
+            return;
+        }
+        Listener[] current = listeners;
+        Listener[] updated = new Listener[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    synchronized void removeListener(@NonNull Listener listener) {
+        Listener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                Listener[] updated = current.length == 1 ? NO_LISTENERS : new Listener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of listeners registered, for tests.
+     */
+    int listenerCount() {
+        return listeners.length;
+    }
+
+    /**
+     * @return whether a dispatcher for the LifecycleOwner is looked up from the map, for tests.
+     */
+    static boolean isTracked(@NonNull LifecycleOwner lifecycleOwner) {
+        synchronized (DISPATCHERS) {
+            return DISPATCHERS.containsKey(lifecycleOwner);
+        }
+    }
+
+    @Override
+    public void onStateChanged(final LifecycleOwner source, final Lifecycle.Event event) {
+        Lifecycle lifecycle = this.lifecycle;
+        if (lifecycle == null) {
+            return;
+        }
+        dispatch(lifecycle.getCurrentState());
+    }
+
+    private void dispatch(@NonNull final Lifecycle.State state) {
+        // Published before any listener hears about it, so streams they touch can't see an older state afterwards
+        this.state = state;
+        // Listeners added or removed while dispatching don't affect this event
+        for (Listener listener : listeners) {
+            listener.onStateChange(state);
+        }
+        if (state == Lifecycle.State.DESTROYED) {
+            destroy();
+        }
+    }
+
+    private void destroy() {
+        Lifecycle lifecycle;
+        synchronized (this) {
+            lifecycle = this.lifecycle;
+            this.lifecycle = null;
+            listeners = NO_LISTENERS;
+        }
+        if (lifecycle != null) {
+            // No memory leaks please
+            lifecycle.removeObserver(this);
+        }
+        LifecycleOwner lifecycleOwner = this.lifecycleOwner != null ? this.lifecycleOwner.get() : null;
+        if (lifecycleOwner == null) {
+            // Never in the map, or already dropped from it along with its collected LifecycleOwner
+            return;
+        }
+        synchronized (DISPATCHERS) {
+            if (DISPATCHERS.get(lifecycleOwner) == this) {
+                DISPATCHERS.remove(lifecycleOwner);
+            }
+        }
+    }
+}
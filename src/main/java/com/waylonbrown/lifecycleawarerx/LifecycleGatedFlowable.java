@@ -0,0 +1,277 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.waylonbrown.lifecycleawarerx.buffer.RingBuffer;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import io.reactivex.Flowable;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.internal.util.BackpressureHelper;
+
+/**
+ * Flowable that only requests items from its upstream while the {@link LifecycleOwner} is active. Rather than caching
+ * what the upstream emits in the background, it stops asking for more so the upstream itself pauses its work, then
+ * goes back to requesting in prefetch-sized batches once the LifecycleOwner is active again.
+ *
+ * At most prefetch items are ever held, which are those already requested before the LifecycleOwner went inactive. The
+ * LifecycleOwner is considered active at STARTED unless the stream was bound to pause below RESUMED. Once it's
+ * destroyed, whatever is held is dropped and nothing more is delivered or requested, and the upstream is cancelled
+ * unless the {@link DestroyMode} lets it run until it ends on its own.
+ *
+ * @param <T> stream inner type
+ */
+class LifecycleGatedFlowable<T> extends Flowable<T> {
+
+    @NonNull private final Publisher<T> source;
+    @NonNull private final LifecycleDispatcher dispatcher;
+    @NonNull private final Lifecycle.State activeState;
+    @NonNull private final DestroyMode destroyMode;
+    private final int prefetch;
+
+    LifecycleGatedFlowable(@NonNull Publisher<T> source, @NonNull LifecycleDispatcher dispatcher,
+                           @NonNull Lifecycle.State activeState, @NonNull DestroyMode destroyMode, int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch must be positive but was " + prefetch);
+        }
+        this.source = source;
+        this.dispatcher = dispatcher;
+        this.activeState = activeState;
+        this.destroyMode = destroyMode;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super T> subscriber) {
+        source.subscribe(new GateSubscriber<>(subscriber, dispatcher, activeState, destroyMode, prefetch));
+    }
+
+    static final class GateSubscriber<T> implements Subscriber<T>, Subscription, LifecycleDispatcher.Listener {
+
+        @NonNull private final Subscriber<? super T> downstream;
+        private final int prefetch;
+        private final int limit;
+
+        @NonNull private final LifecycleDispatcher dispatcher;
+        @NonNull private final Lifecycle.State activeState;
+        @NonNull private final DestroyMode destroyMode;
+        @Nullable private Subscription upstream;
+
+        // Everything below is guarded by the queue
+        @NonNull private final RingBuffer<T> queue;
+        private boolean active;
+        private boolean started;
+        private boolean draining;
+        private boolean done;
+        private boolean cancelled;
+        @Nullable private Throwable error;
+        private long requested;
+        /** Items delivered downstream since the last time more were requested from upstream. */
+        private int consumed;
+
+        GateSubscriber(@NonNull Subscriber<? super T> downstream, @NonNull LifecycleDispatcher dispatcher,
+                       @NonNull Lifecycle.State activeState, @NonNull DestroyMode destroyMode, int prefetch) {
+            this.downstream = downstream;
+            this.dispatcher = dispatcher;
+            this.activeState = activeState;
+            this.destroyMode = destroyMode;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+            this.queue = new RingBuffer<>(prefetch);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(upstream, s)) {
+                upstream = s;
+                downstream.onSubscribe(this);
+                dispatcher.addListener(this);
+                onStateChange(dispatcher.getCurrentState());
+            }
+        }
+
+        @Override
+        public void onStateChange(@NonNull Lifecycle.State state) {
+            if (state == Lifecycle.State.DESTROYED) {
+                destroy();
+                return;
+            }
+            synchronized (queue) {
+                active = state.isAtLeast(activeState);
+            }
+            drain();
+        }
+
+        @Override
+        public void onNext(T item) {
+            synchronized (queue) {
+                if (done || cancelled) {
+                    return;
+                }
+                if (!queue.offer(item)) {
+                    // The upstream emitted more than was requested
+                    done = true;
+                    error = new MissingBackpressureException("Queue of " + prefetch + " items is full");
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            synchronized (queue) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                error = e;
+            }
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (queue) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                synchronized (queue) {
+                    requested = BackpressureHelper.addCap(requested, n);
+                }
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (queue) {
+                cancelled = true;
+                queue.clear();
+            }
+            if (upstream != null) {
+                upstream.cancel();
+            }
+            dispatcher.removeListener(this);
+        }
+
+        /**
+         * Drops what's held and stops draining, so nothing reaches downstream even if a drain is under way on another
+         * thread. What the DestroyMode says happens to downstream is left to the operators after this one.
+         */
+        private void destroy() {
+            synchronized (queue) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                active = false;
+                queue.clear();
+            }
+            if (destroyMode != DestroyMode.FILTER && upstream != null) {
+                upstream.cancel();
+            }
+        }
+
+        /**
+         * Delivers queued items while the LifecycleOwner is active and downstream has requested them, then tops up
+         * what's requested from upstream. Only one thread drains at a time, anything queued meanwhile is picked up by
+         * the thread already draining.
+         */
+        private void drain() {
+            synchronized (queue) {
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            for (;;) {
+                T item = null;
+                Throwable terminalError = null;
+                boolean terminate = false;
+                long toRequest = 0L;
+                synchronized (queue) {
+                    if (cancelled) {
+                        draining = false;
+                        return;
+                    }
+                    if (active) {
+                        if (requested > 0L) {
+                            item = queue.poll();
+                        }
+                        if (item != null) {
+                            if (requested != Long.MAX_VALUE) {
+                                requested--;
+                            }
+                            consumed++;
+                        } else if (done && queue.isEmpty()) {
+                            terminate = true;
+                            cancelled = true;
+                            terminalError = error;
+                            error = null;
+                        } else {
+                            toRequest = nextRequest();
+                            if (toRequest == 0L) {
+                                draining = false;
+                                return;
+                            }
+                        }
+                    } else {
+                        // Nothing is delivered or requested while the LifecycleOwner isn't active
+                        draining = false;
+                        return;
+                    }
+                }
+                if (item != null) {
+                    downstream.onNext(item);
+                } else if (terminate) {
+                    dispatcher.removeListener(this);
+                    if (terminalError != null) {
+                        downstream.onError(terminalError);
+                    } else {
+                        downstream.onComplete();
+                    }
+                    return;
+                } else if (upstream != null) {
+                    upstream.request(toRequest);
+                }
+            }
+        }
+
+        /**
+         * Must be called while holding the queue.
+         *
+         * @return how many items to request from upstream, either the first prefetch-sized batch or a replenishing one
+         *      once enough of the previous batch has been delivered.
+         */
+        private long nextRequest() {
+            if (done) {
+                return 0L;
+            }
+            if (!started) {
+                started = true;
+                return prefetch;
+            }
+            if (consumed >= limit) {
+                int batch = consumed;
+                consumed = 0;
+                return batch;
+            }
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.MaybeObserver;
+import io.reactivex.MaybeOperator;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableOperator;
+import io.reactivex.Observer;
+import io.reactivex.SingleObserver;
+import io.reactivex.SingleOperator;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.internal.fuseable.QueueDisposable;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Operator used by lift(), or {@link #bind(Observable)} for Observables, for streams bound with the default options,
+ * doing in a single observer what would otherwise take cache(), filter() with {@link FilterIfDestroyedPredicate}, and
+ * for the {@link DestroyMode}s that dispose the upstream, {@link DisposeOnDestroyObserver} along with takeUntil(). Since
+ * the bound observer is only subscribed once the {@link LifecycleOwner} is active, and the upstream along with it,
+ * there's nothing to cache in the first place.
+ *
+ * Items are dropped once the LifecycleOwner is destroyed, and with a DestroyMode other than FILTER the upstream is also
+ * disposed at that point. Completing the observer on destroy can race with an item being delivered, which is resolved
+ * with a single state word rather than a lock.
+ *
+ * Observables support queue fusion by passing it through to a fuseable upstream, with items polled after the
+ * LifecycleOwner is destroyed being skipped, except when completing on destroy since that completion can't be
+ * serialized with the downstream's polling.
+ *
+ * @param <T> stream inner type
+ */
+class LifecycleOperator<T> implements ObservableOperator<T, T>, SingleOperator<T, T>, MaybeOperator<T, T> {
+
+    /** An item is being delivered, set in the state word of an observer that completes on destroy. */
+    private static final int EMITTING = 1;
+    /** The LifecycleOwner was destroyed while an item was being delivered, so the emitting thread completes. */
+    private static final int COMPLETE_PENDING = 2;
+    /** A terminal event was delivered or the observer was disposed, nothing else gets through. */
+    private static final int DONE = 4;
+
+    @NonNull private final LifecycleDispatcher dispatcher;
+    @NonNull private final DestroyMode destroyMode;
+
+    LifecycleOperator(@NonNull LifecycleDispatcher dispatcher, @NonNull DestroyMode destroyMode) {
+        this.dispatcher = dispatcher;
+        this.destroyMode = destroyMode;
+    }
+
+    /**
+     * @return whether streams bound with these options need nothing but this operator, which is the case with the 
+     *      default buffering, delivery and metrics. Flowables are gated by an operator of their own either way.
+     */
+    static boolean canFuse(@NonNull BindOptions bindOptions) {
+        return bindOptions.isFusionAllowed()
+            && bindOptions.getBufferStrategy() == null && bindOptions.getKeySelector() == null
+            && bindOptions.getFrameClock() == null && LifecycleBinder.metricsFor(bindOptions) == null;
+    }
+
+    @Override
+    public Observer<? super T> apply(Observer<? super T> observer) throws Exception {
+        return new BoundObserver<>(observer, dispatcher, destroyMode);
+    }
+
+    /**
+     * Use instead of lift() for Observables, which in this version of RxJava builds an error message with the
+     * operator's toString() on every subscribe.
+     */
+    @NonNull
+    Observable<T> bind(@NonNull Observable<T> upstream) {
+        return new BoundObservable(upstream);
+    }
+
+    @Override
+    public SingleObserver<? super T> apply(SingleObserver<? super T> observer) throws Exception {
+        return new BoundSingleObserver<>(observer, dispatcher, destroyMode);
+    }
+
+    @Override
+    public MaybeObserver<? super T> apply(MaybeObserver<? super T> observer) throws Exception {
+        return new BoundMaybeObserver<>(observer, dispatcher, destroyMode);
+    }
+
+    private final class BoundObservable extends Observable<T> {
+
+        @NonNull private final ObservableSource<T> source;
+
+        BoundObservable(@NonNull ObservableSource<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        protected void subscribeActual(Observer<? super T> observer) {
+            source.subscribe(new BoundObserver<>(observer, dispatcher, destroyMode));
+        }
+    }
+
+    /**
+     * The state word this extends is only used when completing on destroy.
+     */
+    static final class BoundObserver<T> extends AtomicInteger
+            implements Observer<T>, QueueDisposable<T>, LifecycleDispatcher.Listener {
+
+        private static final long serialVersionUID = -2937457346379052490L;
+
+        @NonNull private final Observer<? super T> downstream;
+        @NonNull private final LifecycleDispatcher dispatcher;
+        @NonNull private final DestroyMode destroyMode;
+        private final boolean completesOnDestroy;
+        @Nullable private Disposable upstream;
+        @Nullable private QueueDisposable<T> upstreamQueue;
+        private int sourceMode;
+
+        BoundObserver(@NonNull Observer<? super T> downstream, @NonNull LifecycleDispatcher dispatcher,
+                      @NonNull DestroyMode destroyMode) {
+            this.downstream = downstream;
+            this.dispatcher = dispatcher;
+            this.destroyMode = destroyMode;
+            this.completesOnDestroy = destroyMode == DestroyMode.DISPOSE_AND_COMPLETE;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(upstream, d)) {
+                upstream = d;
+                if (d instanceof QueueDisposable) {
+                    upstreamQueue = (QueueDisposable<T>) d;
+                }
+                downstream.onSubscribe(this);
+                listenForDestroy(dispatcher, destroyMode, this);
+            }
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (sourceMode != NONE) {
+                // Fused, the downstream polls the item itself
+                downstream.onNext(null);
+                return;
+            }
+            if (!completesOnDestroy) {
+                if (dispatcher.getCurrentState() != Lifecycle.State.DESTROYED) {
+                    downstream.onNext(item);
+                }
+                return;
+            }
+            if (!compareAndSet(0, EMITTING)) {
+                return;
+            }
+            if (dispatcher.getCurrentState() != Lifecycle.State.DESTROYED) {
+                downstream.onNext(item);
+            }
+            if (!compareAndSet(EMITTING, 0)) {
+                // Destroyed while delivering, completing was left to this thread
+                set(DONE);
+                downstream.onComplete();
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (completesOnDestroy && getAndSet(DONE) != 0) {
+                RxJavaPlugins.onError(e);
+                return;
+            }
+            dispatcher.removeListener(this);
+            downstream.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            if (completesOnDestroy && getAndSet(DONE) != 0) {
+                return;
+            }
+            dispatcher.removeListener(this);
+            downstream.onComplete();
+        }
+
+        @Override
+        public void onStateChange(@NonNull Lifecycle.State state) {
+            if (state != Lifecycle.State.DESTROYED) {
+                return;
+            }
+            if (upstream != null) {
+                upstream.dispose();
+            }
+            if (!completesOnDestroy) {
+                return;
+            }
+            for (;;) {
+                int current = get();
+                if (current == 0) {
+                    if (compareAndSet(0, DONE)) {
+                        downstream.onComplete();
+                        return;
+                    }
+                } else if (current == EMITTING) {
+                    if (compareAndSet(EMITTING, EMITTING | COMPLETE_PENDING)) {
+                        return;
+                    }
+                } else {
+                    // Already done or left to the emitting thread
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (upstream != null) {
+                upstream.dispose();
+            }
+            dispatcher.removeListener(this);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return upstream != null && upstream.isDisposed();
+        }
+
+        @Override
+        public int requestFusion(int mode) {
+            QueueDisposable<T> queue = upstreamQueue;
+            if (queue == null || completesOnDestroy) {
+                return NONE;
+            }
+            // Whichever thread polls, the destroyed check is the same, so no need to refuse BOUNDARY fusion
+            int fusedMode = queue.requestFusion(mode);
+            sourceMode = fusedMode;
+            return fusedMode;
+        }
+
+        @Nullable
+        @Override
+        public T poll() throws Exception {
+            for (;;) {
+                T item = upstreamQueue.poll();
+                if (item == null || dispatcher.getCurrentState() != Lifecycle.State.DESTROYED) {
+                    return item;
+                }
+            }
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return upstreamQueue.isEmpty();
+        }
+
+        @Override
+        public void clear() {
+            upstreamQueue.clear();
+        }
+
+        @Override
+        public boolean offer(T value) {
+            throw new UnsupportedOperationException("Should not be called");
+        }
+
+        @Override
+        public boolean offer(T v1, T v2) {
+            throw new UnsupportedOperationException("Should not be called");
+        }
+    }
+
+    /**
+     * Singles can't complete, so a Single is only ever disposed on destroy. A result arriving after the LifecycleOwner
+     * is destroyed is delivered as a NoSuchElementException, same as an empty Maybe converted with toSingle().
+     */
+    static final class BoundSingleObserver<T> implements SingleObserver<T>, Disposable, LifecycleDispatcher.Listener {
+
+        @NonNull private final SingleObserver<? super T> downstream;
+        @NonNull private final LifecycleDispatcher dispatcher;
+        @NonNull private final DestroyMode destroyMode;
+        @Nullable private Disposable upstream;
+
+        BoundSingleObserver(@NonNull SingleObserver<? super T> downstream, @NonNull LifecycleDispatcher dispatcher,
+                            @NonNull DestroyMode destroyMode) {
+            this.downstream = downstream;
+            this.dispatcher = dispatcher;
+            this.destroyMode = destroyMode;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(upstream, d)) {
+                upstream = d;
+                downstream.onSubscribe(this);
+                listenForDestroy(dispatcher, destroyMode, this);
+            }
+        }
+
+        @Override
+        public void onSuccess(T value) {
+            dispatcher.removeListener(this);
+            if (dispatcher.getCurrentState() != Lifecycle.State.DESTROYED) {
+                downstream.onSuccess(value);
+            } else {
+                downstream.onError(new NoSuchElementException());
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            dispatcher.removeListener(this);
+            downstream.onError(e);
+        }
+
+        @Override
+        public void onStateChange(@NonNull Lifecycle.State state) {
+            if (state == Lifecycle.State.DESTROYED && upstream != null) {
+                upstream.dispose();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (upstream != null) {
+                upstream.dispose();
+            }
+            dispatcher.removeListener(this);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return upstream != null && upstream.isDisposed();
+        }
+    }
+
+    /**
+     * A Maybe only ever signals once, so its state word just records whether that has happened yet.
+     */
+    static final class BoundMaybeObserver<T> extends AtomicInteger
+            implements MaybeObserver<T>, Disposable, LifecycleDispatcher.Listener {
+
+        private static final long serialVersionUID = 6117201686918631003L;
+
+        @NonNull private final MaybeObserver<? super T> downstream;
+        @NonNull private final LifecycleDispatcher dispatcher;
+        @NonNull private final DestroyMode destroyMode;
+        @Nullable private Disposable upstream;
+
+        BoundMaybeObserver(@NonNull MaybeObserver<? super T> downstream, @NonNull LifecycleDispatcher dispatcher,
+                           @NonNull DestroyMode destroyMode) {
+            this.downstream = downstream;
+            this.dispatcher = dispatcher;
+            this.destroyMode = destroyMode;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(upstream, d)) {
+                upstream = d;
+                downstream.onSubscribe(this);
+                listenForDestroy(dispatcher, destroyMode, this);
+            }
+        }
+
+        @Override
+        public void onSuccess(T value) {
+            if (getAndSet(DONE) != 0) {
+                return;
+            }
+            dispatcher.removeListener(this);
+            if (dispatcher.getCurrentState() != Lifecycle.State.DESTROYED) {
+                downstream.onSuccess(value);
+            } else {
+                downstream.onComplete();
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (getAndSet(DONE) != 0) {
+                RxJavaPlugins.onError(e);
+                return;
+            }
+            dispatcher.removeListener(this);
+            downstream.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            if (getAndSet(DONE) != 0) {
+                return;
+            }
+            dispatcher.removeListener(this);
+            downstream.onComplete();
+        }
+
+        @Override
+        public void onStateChange(@NonNull Lifecycle.State state) {
+            if (state != Lifecycle.State.DESTROYED) {
+                return;
+            }
+            if (upstream != null) {
+                upstream.dispose();
+            }
+            if (destroyMode == DestroyMode.DISPOSE_AND_COMPLETE && getAndSet(DONE) == 0) {
+                downstream.onComplete();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (upstream != null) {
+                upstream.dispose();
+            }
+            dispatcher.removeListener(this);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return upstream != null && upstream.isDisposed();
+        }
+    }
+
+    /**
+     * Registers the observer to be told when the LifecycleOwner is destroyed, unless items are only filtered out then.
+     */
+    private static void listenForDestroy(@NonNull LifecycleDispatcher dispatcher, @NonNull DestroyMode destroyMode,
+                                         @NonNull LifecycleDispatcher.Listener listener) {
+        if (destroyMode == DestroyMode.FILTER) {
+            return;
+        }
+        dispatcher.addListener(listener);
+        if (dispatcher.getCurrentState() == Lifecycle.State.DESTROYED) {
+            // Destroyed before or while being added, which the observers handle being told about twice
+            listener.onStateChange(Lifecycle.State.DESTROYED);
+        }
+    }
+}
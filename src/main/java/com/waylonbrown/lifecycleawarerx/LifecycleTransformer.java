@@ -2,9 +2,22 @@ package com.waylonbrown.lifecycleawarerx;
 
 import android.arch.lifecycle.LifecycleOwner;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import com.waylonbrown.lifecycleawarerx.buffer.BufferStrategy;
+import com.waylonbrown.lifecycleawarerx.buffer.BufferingMaybe;
+import com.waylonbrown.lifecycleawarerx.buffer.BufferingObservable;
+import com.waylonbrown.lifecycleawarerx.buffer.ConflatingObservable;
+import com.waylonbrown.lifecycleawarerx.buffer.Serializer;
+import com.waylonbrown.lifecycleawarerx.buffer.SpillingObservable;
+import com.waylonbrown.lifecycleawarerx.delivery.FrameClock;
+import com.waylonbrown.lifecycleawarerx.delivery.FrameDeliveryMaybe;
 import com.waylonbrown.lifecycleawarerx.reactivetypes.BaseReactiveTypeWithObserver;
+import com.waylonbrown.lifecycleawarerx.reactivetypes.FlowableWithObserver;
 
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
 import io.reactivex.Maybe;
 import io.reactivex.MaybeSource;
 import io.reactivex.MaybeTransformer;
@@ -14,10 +27,15 @@ import io.reactivex.ObservableTransformer;
 import io.reactivex.Single;
 import io.reactivex.SingleSource;
 import io.reactivex.SingleTransformer;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+
+import org.reactivestreams.Publisher;
 
 /**
  * Transformer that is used by the compose() method of your stream to cache emitted items and subscribe to them once 
- * the {@link LifecycleOwner} is active, as well as stop emitting items once the LifecycleOwner is destroyed.
+ * the {@link LifecycleOwner} is active, as well as stop emitting items once the LifecycleOwner is destroyed. Flowables
+ * aren't cached, they instead stop requesting items from upstream while the LifecycleOwner isn't active.
  * 
  * @param <T> stream inner type (what you want returned in your subscription)
  * @param <R> reactive type
@@ -25,32 +43,86 @@ import io.reactivex.SingleTransformer;
  */
 class LifecycleTransformer<T, R, O> implements ObservableTransformer<T, T>,
 		SingleTransformer<T, T>,
-		MaybeTransformer<T, T> {
+		MaybeTransformer<T, T>,
+		FlowableTransformer<T, T> {
 
 	@NonNull
-	private final BaseReactiveTypeWithObserver<R, O> baseReactiveType;
+	private final FilterIfDestroyedPredicate<T> filterIfDestroyedPredicate;
 	@NonNull
-	private final SubscribeWhenReadyObserver<R, O> lifecycleObserver;
+	private final BindOptions bindOptions;
+	/**
+	 * Only set when bound with the default buffering, delivery and metrics, which it replaces for Observables, Singles
+	 * and Maybes with a single observer.
+	 */
+	@Nullable
+	private final LifecycleOperator<T> fusedOperator;
 	@NonNull
-	private final FilterIfDestroyedPredicate<T> filterIfDestroyedPredicate;
+	private final StreamWiring<T, R, O> wiring;
+	/**
+	 * Holds Observables in whatever buffer the BindOptions ask for.
+	 */
+	@NonNull
+	private final StreamWiring.BufferFactory<T, T, StreamMeter.Stamped<T>> bufferFactory =
+		new StreamWiring.BufferFactory<T, T, StreamMeter.Stamped<T>>() {
+			@Override
+			public Observable<T> buffer(Observable<T> upstream) {
+				BufferStrategy bufferStrategy = bindOptions.getBufferStrategy();
+				return LifecycleTransformer.this.buffer(upstream, bindOptions.<T>getKeySelector(),
+					bufferStrategy != null ? bufferStrategy.<T>getSerializer() : null);
+			}
+
+			@Override
+			public Observable<StreamMeter.Stamped<T>> bufferStamped(Observable<StreamMeter.Stamped<T>> upstream) {
+				Function<? super T, ?> keySelector = bindOptions.getKeySelector();
+				BufferStrategy bufferStrategy = bindOptions.getBufferStrategy();
+				Serializer<T> serializer = bufferStrategy != null ? bufferStrategy.<T>getSerializer() : null;
+				return LifecycleTransformer.this.buffer(upstream,
+					keySelector != null ? StreamMeter.keyOf(keySelector) : null,
+					serializer != null ? StreamMeter.serializerOf(serializer) : null);
+			}
+
+			@Override
+			public Predicate<StreamMeter.Stamped<T>> deliveredIfNotDestroyed(StreamMeter streamMeter) {
+				return streamMeter.deliveredIfNotDestroyed(filterIfDestroyedPredicate);
+			}
+
+			@Override
+			public Function<StreamMeter.Stamped<T>, T> unstamp(StreamMeter streamMeter) {
+				return streamMeter.unstamp();
+			}
+		};
 
 	LifecycleTransformer(@NonNull final LifecycleOwner lifecycleOwner,
 						 @NonNull final BaseReactiveTypeWithObserver<R, O> baseReactiveType) {
-		this.baseReactiveType = baseReactiveType;
-		this.lifecycleObserver = new SubscribeWhenReadyObserver<>(lifecycleOwner);
-		this.filterIfDestroyedPredicate = new FilterIfDestroyedPredicate<>(lifecycleOwner);
+		this(lifecycleOwner, baseReactiveType, BindOptions.defaults());
+	}
+
+	/**
+	 * @param bindOptions if a {@link BufferStrategy} is set, streams are subscribed to right away, or as their 
+	 *      {@link SubscriptionMode} asks, and only hold the items it allows until they're delivered, instead of using 
+	 *      cache().
+	 */
+	LifecycleTransformer(@NonNull final LifecycleOwner lifecycleOwner,
+						 @NonNull final BaseReactiveTypeWithObserver<R, O> baseReactiveType,
+						 @NonNull final BindOptions bindOptions) {
+		this.bindOptions = bindOptions;
+		// Flowables are already gated by a single operator of their own
+		boolean fused = !(baseReactiveType instanceof FlowableWithObserver) && LifecycleOperator.canFuse(bindOptions);
+		// The fused operator disposes the upstream itself
+		this.wiring = new StreamWiring<>(lifecycleOwner, baseReactiveType, bindOptions, fused);
+		this.filterIfDestroyedPredicate = new FilterIfDestroyedPredicate<>(wiring.getDispatcher());
+		this.fusedOperator = fused
+			? new LifecycleOperator<T>(wiring.getDispatcher(), bindOptions.getDestroyMode())
+			: null;
 	}
 
 	@Override
 	public ObservableSource<T> apply(final Observable<T> upstream) {
-		Observable<T> transformedStream = upstream
-				.cache() // Cache to replay emitted values to late subscriber
-				.filter(filterIfDestroyedPredicate); // Filter to stop emitting items once LifecycleOwner is destroyed
-		// Note: with Observables, takeWhile() can be used instead of filter() to end the stream immediately, though 
-		// we're not doing so here since it calls the onComplete().
-		setReactiveType((R)transformedStream);
-		
-		return transformedStream;
+		if (fusedOperator != null) {
+			// Nothing to cache, since the upstream is only subscribed to along with the observer once it's active
+			return bound(fusedOperator.bind(upstream));
+		}
+		return bound(wiring.deliver(upstream, bufferFactory));
 	}
 
 	/**
@@ -62,27 +134,128 @@ class LifecycleTransformer<T, R, O> implements ObservableTransformer<T, T>,
 	 */
 	@Override
 	public SingleSource<T> apply(Single<T> upstream) {
-		Single<T> transformedStream = upstream
-				.cache() // Cache to replay emitted values to late subscriber
-				.filter(filterIfDestroyedPredicate) // Filter to stop emitting items once LifecycleOwner is destroyed
-				.toSingle();
-		setReactiveType((R)transformedStream);
-		
-		return transformedStream;
+		if (fusedOperator != null) {
+			return bound(upstream.lift(fusedOperator));
+		}
+		Single<T> transformedStream = deliver(wiring.trackUpstream(upstream).toMaybe()).toSingle();
+		if (wiring.hasListeners()) {
+			transformedStream = transformedStream.doFinally(wiring.releaseListeners());
+		}
+		return bound(transformedStream);
 	}
 
 	@Override
 	public MaybeSource<T> apply(Maybe<T> upstream) {
-		Maybe<T> transformedStream = upstream
-				.cache() // Cache to replay emitted values to late subscriber
+		if (fusedOperator != null) {
+			return bound(upstream.lift(fusedOperator));
+		}
+		Maybe<T> transformedStream = deliver(wiring.trackUpstream(upstream));
+		if (wiring.completesOnDestroy()) {
+			transformedStream = transformedStream.takeUntil(wiring.destroySignal().firstElement());
+		}
+		if (wiring.hasListeners()) {
+			transformedStream = transformedStream.doFinally(wiring.releaseListeners());
+		}
+		return bound(transformedStream);
+	}
+
+	@Override
+	public Publisher<T> apply(final Flowable<T> upstream) {
+		StreamMeter streamMeter = wiring.getStreamMeter();
+		Flowable<T> transformedStream = streamMeter == null
+			? gate(wiring.trackUpstream(upstream))
+				.filter(filterIfDestroyedPredicate) // Filter to stop emitting items once LifecycleOwner is destroyed
+			: gate(wiring.trackUpstream(upstream).map(streamMeter.<T>stamp()))
+				.filter(streamMeter.deliveredIfNotDestroyed(filterIfDestroyedPredicate))
+				.map(streamMeter.<T>unstamp())
+				.doOnSubscribe(streamMeter.onSubscribe());
+		if (wiring.completesOnDestroy()) {
+			transformedStream = transformedStream.takeUntil(
+				wiring.destroySignal().toFlowable(BackpressureStrategy.LATEST));
+		}
+		if (wiring.hasListeners()) {
+			transformedStream = transformedStream.doFinally(wiring.releaseListeners());
+		}
+		return bound(transformedStream);
+	}
+
+	/**
+	 * Holds the result until it's delivered, then filters it out if the LifecycleOwner is destroyed by then. Shared by
+	 * Singles, which are converted to Maybes to be able to filter them.
+	 */
+	private Maybe<T> deliver(final Maybe<T> upstream) {
+		StreamMeter streamMeter = wiring.getStreamMeter();
+		if (streamMeter == null) {
+			return deliverOnFrames(buffer(upstream))
 				.filter(filterIfDestroyedPredicate); // Filter to stop emitting items once LifecycleOwner is destroyed
-		setReactiveType((R)transformedStream);
-		
-		return transformedStream;
+		}
+		return deliverOnFrames(buffer(upstream.map(streamMeter.<T>stamp())))
+			.filter(streamMeter.deliveredIfNotDestroyed(filterIfDestroyedPredicate))
+			.map(streamMeter.<T>unstamp())
+			.doOnSubscribe(streamMeter.onSubscribe());
+	}
+
+	private <V> Flowable<V> gate(final Flowable<V> upstream) {
+		return new LifecycleGatedFlowable<>(upstream, wiring.getDispatcher(), bindOptions.getActiveState(),
+			bindOptions.getDestroyMode(), bindOptions.getPrefetch());
+	}
+
+	/**
+	 * @param keySelector when set, only the latest item per key is held instead of what the BufferStrategy allows.
+	 * @param serializer set when the BufferStrategy spills to disk, what the items are written with.
+	 */
+	private <V> Observable<V> buffer(final Observable<V> upstream, @Nullable final Function<? super V, ?> keySelector,
+									 @Nullable final Serializer<V> serializer) {
+		BufferStrategy bufferStrategy = bindOptions.getBufferStrategy();
+		if (keySelector != null) {
+			// Holds the latest item per key, starts collecting right away and is drained by the late subscriber
+			ConflatingObservable<V, ?> conflatingObservable = new ConflatingObservable<>(upstream, keySelector);
+			wiring.pauseAndConnect(conflatingObservable);
+			return conflatingObservable;
+		}
+		if (bufferStrategy == null) {
+			return upstream.cache(); // Cache to replay emitted values to late subscriber
+		}
+		if (serializer != null) {
+			// Holds what doesn't fit in memory in a file, which is deleted once the LifecycleOwner is destroyed
+			SpillingObservable<V> spillingObservable = new SpillingObservable<>(upstream, bufferStrategy, serializer);
+			wiring.pauseAndConnect(spillingObservable);
+			wiring.releaseOnDestroy(spillingObservable);
+			return spillingObservable;
+		}
+		// Bounded buffer that starts collecting right away and is drained by the late subscriber
+		BufferingObservable<V> bufferingObservable = new BufferingObservable<>(upstream, bufferStrategy);
+		wiring.pauseAndConnect(bufferingObservable);
+		return bufferingObservable;
+	}
+
+	private <V> Maybe<V> buffer(final Maybe<V> upstream) {
+		if (bindOptions.getBufferStrategy() == null) {
+			return upstream.cache(); // Cache to replay emitted values to late subscriber
+		}
+		// Holds the result only until the late subscriber receives it
+		BufferingMaybe<V> bufferingMaybe = new BufferingMaybe<>(upstream);
+		ConnectWhenReachedObserver.connect(wiring.getDispatcher(), bindOptions, bufferingMaybe);
+		return bufferingMaybe;
 	}
 
-	private void setReactiveType(final R upstream) {
-		baseReactiveType.setReactiveType(upstream);
-		lifecycleObserver.setBaseReactiveType(baseReactiveType);
+	/**
+	 * Placed before the destroyed filter, so the result is checked against the state at the time it's delivered rather 
+	 * than when it was queued for the next frame.
+	 */
+	private <V> Maybe<V> deliverOnFrames(final Maybe<V> upstream) {
+		FrameClock frameClock = bindOptions.getFrameClock();
+		return frameClock != null ? new FrameDeliveryMaybe<>(upstream, frameClock) : upstream;
+	}
+
+	/**
+	 * The one place streams are cast to R. Each transformer is only handed out as the transformer type matching its 
+	 * BaseReactiveTypeWithObserver, so only the apply() for R is ever called, with a stream of the same type.
+	 */
+	private <S> S bound(final S transformedStream) {
+		@SuppressWarnings("unchecked") // Only the apply() for R is ever called, see above
+		R reactiveType = (R) transformedStream;
+		wiring.setReactiveType(reactiveType);
+		return transformedStream;
 	}
 }
\ No newline at end of file
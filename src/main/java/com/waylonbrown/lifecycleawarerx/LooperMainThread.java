@@ -0,0 +1,36 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+/**
+ * The default {@link MainThread}, backed by the main {@link Looper}. Only created the first time it's needed, so that
+ * setting a different MainThread beforehand never touches the Looper.
+ */
+final class LooperMainThread implements MainThread {
+
+    private static final class Holder {
+        static final LooperMainThread INSTANCE = new LooperMainThread();
+    }
+
+    @NonNull private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private LooperMainThread() {
+    }
+
+    @NonNull
+    static MainThread get() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    @Override
+    public void post(@NonNull final Runnable task) {
+        mainHandler.post(task);
+    }
+}
@@ -0,0 +1,22 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.support.annotation.NonNull;
+
+/**
+ * The thread {@link Lifecycle} callbacks happen on, which is the only one the library touches a Lifecycle from. Streams
+ * bound on any other thread have what's left of binding them posted here. Set a different one with 
+ * {@link LifecycleBinder#setMainThread(MainThread)}, such as in tests that don't run on a Looper.
+ */
+public interface MainThread {
+
+    /**
+     * @return true if called on the main thread.
+     */
+    boolean isMainThread();
+
+    /**
+     * Runs the task on the main thread at some point after this returns.
+     */
+    void post(@NonNull Runnable task);
+}
@@ -0,0 +1,47 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.support.annotation.NonNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands what's left of binding a stream off to the {@link MainThread} when it was bound on another thread. Tasks are 
+ * queued without locking, and only one post is outstanding at a time no matter how many streams are bound before it 
+ * runs, so binding in a loop on a background thread costs a single trip to the main thread.
+ */
+final class MainThreadHandoff {
+
+    private static final Queue<Runnable> PENDING = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean POSTED = new AtomicBoolean();
+    private static final Runnable DRAIN = new Runnable() {
+        @Override
+        public void run() {
+            // Cleared first, so tasks queued while draining either get run below or post again
+            POSTED.set(false);
+            Runnable task;
+            while ((task = PENDING.poll()) != null) {
+                task.run();
+            }
+        }
+    };
+
+    private MainThreadHandoff() {
+    }
+
+    static boolean isMainThread() {
+        return LifecycleBinder.mainThread().isMainThread();
+    }
+
+    /**
+     * Queues the task to be run on the main thread, posting there unless a post is already on its way. Everything 
+     * written before this call is visible to the task.
+     */
+    static void post(@NonNull Runnable task) {
+        PENDING.offer(task);
+        if (POSTED.compareAndSet(false, true)) {
+            LifecycleBinder.mainThread().post(DRAIN);
+        }
+    }
+}
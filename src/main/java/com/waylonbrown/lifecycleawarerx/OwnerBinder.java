@@ -0,0 +1,320 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+
+import com.waylonbrown.lifecycleawarerx.reactivetypes.FlowableWithObserver;
+import com.waylonbrown.lifecycleawarerx.reactivetypes.MaybeWithObserver;
+import com.waylonbrown.lifecycleawarerx.reactivetypes.ObservableWithObserver;
+import com.waylonbrown.lifecycleawarerx.reactivetypes.SingleWithObserver;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Maybe;
+import io.reactivex.MaybeObserver;
+import io.reactivex.MaybeSource;
+import io.reactivex.MaybeTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Observer;
+import io.reactivex.Single;
+import io.reactivex.SingleObserver;
+import io.reactivex.SingleSource;
+import io.reactivex.SingleTransformer;
+
+/**
+ * Binds streams to one {@link LifecycleOwner}, sharing what each stream bound with {@link LifecycleBinder} would
+ * otherwise set up for itself. Get one with {@link LifecycleBinder#forOwner(LifecycleOwner)} as your Activity/Fragment
+ * is created and keep it in a field, then bind every stream of that screen with it.
+ *
+ * Streams bound with the default buffering, delivery and metrics only cost the transformer handed out for them. The
+ * lifecycle is listened to once for all of them, the operator doing the binding is shared, and streams bound before
+ * the LifecycleOwner is active wait in one list to be subscribed once it is. Streams bound with other options, and
+ * Flowables, are set up the same as with LifecycleBinder.
+ *
+ * Unlike those of LifecycleBinder, the transformers handed out here can be passed to compose() any number of times,
+ * with every stream they're composed into subscribed with the same observer. That observer then has to allow more
+ * than one subscription, which the Disposable observers of RxJava don't.
+ *
+ * The LifecycleOwner is only held weakly, since this is one of its dispatcher's listeners, and dispatchers are kept
+ * in a map by their LifecycleOwner for as long as it's reachable. Streams bound once it's been collected are never
+ * subscribed to, as if it had been destroyed.
+ */
+public final class OwnerBinder {
+
+    @NonNull private final WeakReference<LifecycleOwner> lifecycleOwner;
+    @NonNull private final LifecycleDispatcher dispatcher;
+    /**
+     * One per {@link DestroyMode}, indexed by its ordinal, created the first time a stream is bound with it.
+     */
+    @NonNull private final LifecycleOperator<?>[] operators = new LifecycleOperator<?>[DestroyMode.values().length];
+
+    // Streams waiting for the LifecycleOwner to be active, with the observer of each at the same index. Guarded by
+    // pendingStreams, since streams can be bound on any thread.
+    @NonNull private final List<Object> pendingStreams = new ArrayList<>();
+    @NonNull private final List<Object> pendingObservers = new ArrayList<>();
+    private boolean drainPosted;
+
+    @NonNull
+    private final LifecycleDispatcher.Listener listener = new LifecycleDispatcher.Listener() {
+        @Override
+        public void onStateChange(@NonNull Lifecycle.State state) {
+            handleLifecycleState(state);
+        }
+    };
+    @NonNull
+    private final Runnable drainPending = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (pendingStreams) {
+                drainPosted = false;
+            }
+            handleLifecycleState(dispatcher.getCurrentState());
+        }
+    };
+
+    OwnerBinder(@NonNull LifecycleOwner lifecycleOwner) {
+        this.lifecycleOwner = new WeakReference<>(lifecycleOwner);
+        this.dispatcher = LifecycleDispatcher.get(lifecycleOwner);
+        dispatcher.addListener(listener);
+    }
+
+    public <T> ObservableTransformer<T, T> bind(@NonNull Observer<T> observer) {
+        return bind(observer, BindOptions.defaults());
+    }
+
+    public <T> ObservableTransformer<T, T> bind(@NonNull Observer<T> observer, @NonNull BindOptions bindOptions) {
+        return new OwnerTransformer<T>(this, observer, bindOptions);
+    }
+
+    /**
+     * See {@link LifecycleBinder#bind(LifecycleOwner, SingleObserver)} for how Singles are handled once the
+     * LifecycleOwner is destroyed.
+     */
+    public <T> SingleTransformer<T, T> bind(@NonNull SingleObserver<T> observer) {
+        return bind(observer, BindOptions.defaults());
+    }
+
+    public <T> SingleTransformer<T, T> bind(@NonNull SingleObserver<T> observer, @NonNull BindOptions bindOptions) {
+        return new OwnerTransformer<T>(this, observer, bindOptions);
+    }
+
+    public <T> MaybeTransformer<T, T> bind(@NonNull MaybeObserver<T> observer) {
+        return bind(observer, BindOptions.defaults());
+    }
+
+    public <T> MaybeTransformer<T, T> bind(@NonNull MaybeObserver<T> observer, @NonNull BindOptions bindOptions) {
+        return new OwnerTransformer<T>(this, observer, bindOptions);
+    }
+
+    public <T> FlowableTransformer<T, T> bind(@NonNull Subscriber<T> subscriber) {
+        return bind(subscriber, BindOptions.defaults());
+    }
+
+    public <T> FlowableTransformer<T, T> bind(@NonNull Subscriber<T> subscriber, @NonNull BindOptions bindOptions) {
+        return new OwnerTransformer<T>(this, subscriber, bindOptions);
+    }
+
+    @NonNull
+    <T> ObservableSource<T> apply(@NonNull Observable<T> upstream, @NonNull Observer<T> observer,
+                                  @NonNull BindOptions bindOptions) {
+        LifecycleOwner lifecycleOwner = this.lifecycleOwner.get();
+        if (lifecycleOwner == null) {
+            return upstream;
+        }
+        if (!LifecycleOperator.canFuse(bindOptions)) {
+            LifecycleTransformer<T, Observable<T>, Observer<T>> transformer =
+                new LifecycleTransformer<>(lifecycleOwner, new ObservableWithObserver<T>(observer), bindOptions);
+            return transformer.apply(upstream);
+        }
+        return subscribeWhenActive(lifecycleOwner, this.<T>operator(bindOptions).bind(upstream), observer);
+    }
+
+    @NonNull
+    <T> SingleSource<T> apply(@NonNull Single<T> upstream, @NonNull SingleObserver<T> observer,
+                              @NonNull BindOptions bindOptions) {
+        LifecycleOwner lifecycleOwner = this.lifecycleOwner.get();
+        if (lifecycleOwner == null) {
+            return upstream;
+        }
+        if (!LifecycleOperator.canFuse(bindOptions)) {
+            LifecycleTransformer<T, Single<T>, SingleObserver<T>> transformer =
+                new LifecycleTransformer<>(lifecycleOwner, new SingleWithObserver<T>(observer), bindOptions);
+            return transformer.apply(upstream);
+        }
+        return subscribeWhenActive(lifecycleOwner, upstream.lift(this.<T>operator(bindOptions)), observer);
+    }
+
+    @NonNull
+    <T> MaybeSource<T> apply(@NonNull Maybe<T> upstream, @NonNull MaybeObserver<T> observer,
+                             @NonNull BindOptions bindOptions) {
+        LifecycleOwner lifecycleOwner = this.lifecycleOwner.get();
+        if (lifecycleOwner == null) {
+            return upstream;
+        }
+        if (!LifecycleOperator.canFuse(bindOptions)) {
+            LifecycleTransformer<T, Maybe<T>, MaybeObserver<T>> transformer =
+                new LifecycleTransformer<>(lifecycleOwner, new MaybeWithObserver<T>(observer), bindOptions);
+            return transformer.apply(upstream);
+        }
+        return subscribeWhenActive(lifecycleOwner, upstream.lift(this.<T>operator(bindOptions)), observer);
+    }
+
+    @NonNull
+    <T> Publisher<T> apply(@NonNull Flowable<T> upstream, @NonNull Subscriber<T> subscriber,
+                           @NonNull BindOptions bindOptions) {
+        LifecycleOwner lifecycleOwner = this.lifecycleOwner.get();
+        if (lifecycleOwner == null) {
+            return upstream;
+        }
+        // Already gated by a single operator of its own
+        LifecycleTransformer<T, Flowable<T>, Subscriber<T>> transformer =
+            new LifecycleTransformer<>(lifecycleOwner, new FlowableWithObserver<T>(subscriber), bindOptions);
+        return transformer.apply(upstream);
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    private <T> LifecycleOperator<T> operator(@NonNull BindOptions bindOptions) {
+        DestroyMode destroyMode = bindOptions.getDestroyMode();
+        synchronized (operators) {
+            LifecycleOperator<?> operator = operators[destroyMode.ordinal()];
+            if (operator == null) {
+                operator = new LifecycleOperator<>(dispatcher, destroyMode);
+                operators[destroyMode.ordinal()] = operator;
+            }
+            return (LifecycleOperator<T>) operator;
+        }
+    }
+
+    /**
+     * Subscribes the stream right away if bound on the main thread while the LifecycleOwner is active, otherwise once
+     * it is. Never subscribes it if the LifecycleOwner is destroyed first.
+     */
+    @NonNull
+    private <S> S subscribeWhenActive(@NonNull LifecycleOwner lifecycleOwner, @NonNull S stream,
+                                      @NonNull Object observer) {
+        LeakDetector leakDetector = LifecycleBinder.leakDetector();
+        if (leakDetector != null) {
+            leakDetector.track(lifecycleOwner, dispatcher, observer).setStream(stream);
+        }
+        Lifecycle.State state = dispatcher.getCurrentState();
+        if (state == Lifecycle.State.DESTROYED) {
+            return stream;
+        }
+        boolean onMainThread = MainThreadHandoff.isMainThread();
+        boolean queued = false;
+        boolean post = false;
+        synchronized (pendingStreams) {
+            // Streams bound on other threads that are still waiting go first
+            if (!onMainThread || !state.isAtLeast(Lifecycle.State.STARTED) || !pendingStreams.isEmpty()) {
+                pendingStreams.add(stream);
+                pendingObservers.add(observer);
+                queued = true;
+                post = !onMainThread && !drainPosted;
+                drainPosted |= post;
+            }
+        }
+        if (!queued) {
+            subscribe(stream, observer);
+        } else if (onMainThread) {
+            handleLifecycleState(state);
+        } else if (post) {
+            MainThreadHandoff.post(drainPending);
+        }
+        return stream;
+    }
+
+    /**
+     * Only called on the main thread. Subscribes every waiting stream once the LifecycleOwner is active, in the order
+     * they were bound, or lets go of them once it's destroyed.
+     */
+    private void handleLifecycleState(@NonNull Lifecycle.State state) {
+        boolean destroyed = state == Lifecycle.State.DESTROYED;
+        Object[] streams;
+        Object[] observers;
+        synchronized (pendingStreams) {
+            if (pendingStreams.isEmpty() || (!destroyed && !state.isAtLeast(Lifecycle.State.STARTED))) {
+                return;
+            }
+            streams = destroyed ? null : pendingStreams.toArray();
+            observers = destroyed ? null : pendingObservers.toArray();
+            // No memory leaks please
+            pendingStreams.clear();
+            pendingObservers.clear();
+        }
+        if (streams != null) {
+            for (int i = 0; i < streams.length; i++) {
+                subscribe(streams[i], observers[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void subscribe(@NonNull Object stream, @NonNull Object observer) {
+        if (stream instanceof Observable) {
+            ((Observable<Object>) stream).subscribe((Observer<Object>) observer);
+        } else if (stream instanceof Single) {
+            ((Single<Object>) stream).subscribe((SingleObserver<Object>) observer);
+        } else {
+            ((Maybe<Object>) stream).subscribe((MaybeObserver<Object>) observer);
+        }
+    }
+
+    /**
+     * Only holds on to what it was handed, so it can be composed into any number of streams.
+     *
+     * @param <T> stream inner type
+     */
+    private static final class OwnerTransformer<T> implements ObservableTransformer<T, T>,
+            SingleTransformer<T, T>,
+            MaybeTransformer<T, T>,
+            FlowableTransformer<T, T> {
+
+        @NonNull private final OwnerBinder binder;
+        /**
+         * The observer type matching the transformer type it was handed out as.
+         */
+        @NonNull private final Object observer;
+        @NonNull private final BindOptions bindOptions;
+
+        OwnerTransformer(@NonNull OwnerBinder binder, @NonNull Object observer, @NonNull BindOptions bindOptions) {
+            this.binder = binder;
+            this.observer = observer;
+            this.bindOptions = bindOptions;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public ObservableSource<T> apply(Observable<T> upstream) {
+            return binder.apply(upstream, (Observer<T>) observer, bindOptions);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public SingleSource<T> apply(Single<T> upstream) {
+            return binder.apply(upstream, (SingleObserver<T>) observer, bindOptions);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public MaybeSource<T> apply(Maybe<T> upstream) {
+            return binder.apply(upstream, (MaybeObserver<T>) observer, bindOptions);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Publisher<T> apply(Flowable<T> upstream) {
+            return binder.apply(upstream, (Subscriber<T>) observer, bindOptions);
+        }
+    }
+}
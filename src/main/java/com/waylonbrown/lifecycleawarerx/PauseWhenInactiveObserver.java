@@ -0,0 +1,73 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.waylonbrown.lifecycleawarerx.buffer.BufferingObservable;
+import com.waylonbrown.lifecycleawarerx.buffer.Pausable;
+
+/**
+ * Pauses delivery of a {@link Pausable} buffer such as {@link BufferingObservable} every time the 
+ * {@link android.arch.lifecycle.LifecycleOwner} drops below a given state, and resumes it once the LifecycleOwner is 
+ * back at that state. While paused, items are held in the buffer rather than updating views nobody can see.
+ *
+ * With a {@link ResumeScheduler}, resuming is left to it so streams with a higher priority are delivered first.
+ */
+class PauseWhenInactiveObserver implements LifecycleDispatcher.Listener {
+
+    @NonNull
+    private final LifecycleDispatcher dispatcher;
+    @NonNull
+    private final Lifecycle.State activeState;
+    @NonNull
+    private final Pausable buffer;
+    @Nullable
+    private final ResumeScheduler resumeScheduler;
+    private final int priority;
+
+    PauseWhenInactiveObserver(@NonNull LifecycleDispatcher dispatcher,
+                              @NonNull Lifecycle.State activeState,
+                              @NonNull Pausable buffer,
+                              @Nullable ResumeScheduler resumeScheduler,
+                              int priority) {
+        this.dispatcher = dispatcher;
+        this.activeState = activeState;
+        this.buffer = buffer;
+        this.resumeScheduler = resumeScheduler;
+        this.priority = priority;
+        // Added first so no state change is missed, such as one dispatched by a registration posted from another
+        // thread. One dispatched meanwhile can be applied before the state read here, so it's read until it's current
+        dispatcher.addListener(this);
+        Lifecycle.State state;
+        do {
+            state = dispatcher.getCurrentState();
+            onStateChange(state);
+        } while (state != dispatcher.getCurrentState());
+    }
+
+    /**
+     * Stops pausing the buffer once its stream is done with, so the dispatcher doesn't hold on to it until the 
+     * LifecycleOwner is destroyed.
+     */
+    void release() {
+        dispatcher.removeListener(this);
+        if (resumeScheduler != null) {
+            resumeScheduler.cancel(buffer);
+        }
+    }
+
+    @Override
+    public void onStateChange(@NonNull Lifecycle.State state) {
+        // Once destroyed the dispatcher drops this listener, and FilterIfDestroyedPredicate takes care of the rest
+        boolean paused = !state.isAtLeast(activeState);
+        if (resumeScheduler == null) {
+            buffer.setPaused(paused);
+        } else if (paused) {
+            resumeScheduler.cancel(buffer);
+            buffer.setPaused(true);
+        } else {
+            resumeScheduler.resume(buffer, priority);
+        }
+    }
+}
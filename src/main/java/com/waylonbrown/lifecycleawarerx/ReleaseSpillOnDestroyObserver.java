@@ -0,0 +1,44 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+
+import com.waylonbrown.lifecycleawarerx.buffer.SpillingObservable;
+
+/**
+ * Releases a {@link SpillingObservable} once the {@link LifecycleOwner} is destroyed, or right away if it already is,
+ * since nothing it holds is delivered after that and its file would otherwise be left on disk until the stream ends.
+ */
+class ReleaseSpillOnDestroyObserver implements LifecycleDispatcher.Listener {
+
+    @NonNull
+    private final LifecycleDispatcher dispatcher;
+    @NonNull
+    private final SpillingObservable<?> buffer;
+
+    ReleaseSpillOnDestroyObserver(@NonNull LifecycleDispatcher dispatcher, @NonNull SpillingObservable<?> buffer) {
+        this.dispatcher = dispatcher;
+        this.buffer = buffer;
+        dispatcher.addListener(this);
+        if (dispatcher.getCurrentState() == Lifecycle.State.DESTROYED) {
+            // Destroyed before or while being added, and releasing the buffer twice is harmless
+            buffer.release();
+        }
+    }
+
+    /**
+     * Called once the bound stream terminates or its observer disposes it, by which point the buffer has deleted its
+     * file on its own, so the dispatcher doesn't hold on to it until the LifecycleOwner is destroyed.
+     */
+    void release() {
+        dispatcher.removeListener(this);
+    }
+
+    @Override
+    public void onStateChange(@NonNull Lifecycle.State state) {
+        if (state == Lifecycle.State.DESTROYED) {
+            buffer.release();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+
+import com.waylonbrown.lifecycleawarerx.buffer.Pausable;
+import com.waylonbrown.lifecycleawarerx.delivery.ChoreographerFrameClock;
+import com.waylonbrown.lifecycleawarerx.delivery.FrameClock;
+import com.waylonbrown.lifecycleawarerx.util.Ticker;
+
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads what bound streams held while their {@link LifecycleOwner} was in the background over several frames once 
+ * it's back, rather than delivering all of it in the frame it's started in. Share one between the streams of a screen
+ * by binding them with {@link BindOptions#withResumeScheduler}.
+ *
+ * Each frame, streams are resumed from the highest priority down until the frame's time budget is used up, and the
+ * rest wait for the next frame. A stream delivers everything it held once resumed, so at least one stream is resumed
+ * every frame no matter how long it takes.
+ */
+public final class ResumeScheduler {
+
+    @NonNull private final FrameClock frameClock;
+    @NonNull private final Ticker ticker;
+    private final long frameBudgetNanos;
+
+    // Everything below is guarded by the queue
+    @NonNull private final PriorityQueue<Pending> pending = new PriorityQueue<>();
+    private long sequence;
+    private boolean scheduled;
+
+    @NonNull
+    private final Runnable frameCallback = new Runnable() {
+        @Override
+        public void run() {
+            resumeWithinBudget();
+        }
+    };
+
+    /**
+     * @param frameClock such as {@link ChoreographerFrameClock#mainThread()}.
+     * @param frameBudget how long to spend delivering held items each frame, such as 8 milliseconds.
+     */
+    public ResumeScheduler(@NonNull FrameClock frameClock, long frameBudget, @NonNull TimeUnit unit) {
+        this(frameClock, frameBudget, unit, Ticker.SYSTEM);
+    }
+
+    /**
+     * @param ticker what time spent delivering is measured with.
+     */
+    public ResumeScheduler(@NonNull FrameClock frameClock, long frameBudget, @NonNull TimeUnit unit,
+                           @NonNull Ticker ticker) {
+        if (frameBudget <= 0L) {
+            throw new IllegalArgumentException("frameBudget must be positive but was " + frameBudget);
+        }
+        this.frameClock = frameClock;
+        this.frameBudgetNanos = unit.toNanos(frameBudget);
+        this.ticker = ticker;
+    }
+
+    /**
+     * Unpauses the buffer in an upcoming frame, replacing any resume of it that's still waiting.
+     */
+    void resume(@NonNull Pausable buffer, int priority) {
+        synchronized (pending) {
+            remove(buffer);
+            pending.offer(new Pending(buffer, priority, sequence++));
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        frameClock.postFrameCallback(frameCallback);
+    }
+
+    /**
+     * Drops a resume of the buffer that's still waiting, such as when it's paused again before its turn.
+     */
+    void cancel(@NonNull Pausable buffer) {
+        synchronized (pending) {
+            remove(buffer);
+        }
+    }
+
+    private void remove(@NonNull Pausable buffer) {
+        Iterator<Pending> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().buffer == buffer) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    private void resumeWithinBudget() {
+        long frameStart = ticker.nanoTime();
+        for (;;) {
+            Pending next;
+            synchronized (pending) {
+                next = pending.poll();
+                if (next == null) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            next.buffer.setPaused(false);
+            if (ticker.nanoTime() - frameStart >= frameBudgetNanos) {
+                break;
+            }
+        }
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                scheduled = false;
+                return;
+            }
+        }
+        frameClock.postFrameCallback(frameCallback);
+    }
+
+    /**
+     * Highest priority first, then in the order they were resumed.
+     */
+    private static final class Pending implements Comparable<Pending> {
+
+        @NonNull final Pausable buffer;
+        final int priority;
+        final long sequence;
+
+        Pending(@NonNull Pausable buffer, int priority, long sequence) {
+            this.buffer = buffer;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(@NonNull Pending other) {
+            if (priority != other.priority) {
+                return priority > other.priority ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+}
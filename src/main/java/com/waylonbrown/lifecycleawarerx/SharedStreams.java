@@ -0,0 +1,207 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.app.Activity;
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.app.Fragment;
+
+import com.waylonbrown.lifecycleawarerx.buffer.BufferStrategy;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+
+/**
+ * Streams bound with {@link LifecycleBinder#bindShared}, by key. The first stream bound with a key is replayed to every
+ * observer bound with it after that, so its upstream only runs once. Only its most recent items are replayed, as many 
+ * as the first bind's {@link BufferStrategy} holds or otherwise just the latest one, so what's kept doesn't grow with 
+ * how long it runs. Each bind holds a reference until its {@link LifecycleOwner} is destroyed, and once the last one is 
+ * released the upstream is disposed and the key is free to be bound to a new upstream.
+ *
+ * Keys are shared by the whole process, so each is bound with the type of its items, and binding it with another type 
+ * while it's in use fails right away rather than once its items reach the wrong observer.
+ *
+ * Binds with {@link LifecycleBinder#bindRetained} hold on to their reference a little longer when their LifecycleOwner
+ * is only destroyed to be recreated for a configuration change, until the main thread gets to a task posted at that
+ * point. Android recreates the Activity before then, so the new instance binding with the same key in its onCreate(), 
+ * onStart() or onResume() gets the upstream that was already running, along with everything it emitted.
+ */
+final class SharedStreams {
+
+    /**
+     * Every entry has at least one reference, the lock also guards reference counts.
+     */
+    private static final Map<Object, SharedStream<?>> STREAMS = new HashMap<>();
+
+    private SharedStreams() {
+    }
+
+    /**
+     * @return the stream shared by the key, which is the given upstream if it's the first one bound with it.
+     * @throws IllegalArgumentException if the key is already shared by a stream of another type.
+     */
+    @NonNull
+    static <T> Observable<T> share(@NonNull Object key, @NonNull Class<T> type, @NonNull Observable<T> upstream,
+                                   @NonNull LifecycleDispatcher dispatcher, @Nullable BufferStrategy bufferStrategy) {
+        return share(key, type, upstream, dispatcher, bufferStrategy, null);
+    }
+
+    /**
+     * @param bufferStrategy how many items are replayed if this is the first bind with the key, only the latest if null.
+     * @param retainedOwner set to keep the stream running while this LifecycleOwner is recreated.
+     */
+    @NonNull
+    static <T> Observable<T> share(@NonNull Object key, @NonNull Class<T> type, @NonNull Observable<T> upstream,
+                                   @NonNull LifecycleDispatcher dispatcher, @Nullable BufferStrategy bufferStrategy,
+                                   @Nullable LifecycleOwner retainedOwner) {
+        SharedStream<T> stream;
+        synchronized (STREAMS) {
+            SharedStream<?> existing = STREAMS.get(key);
+            if (existing == null) {
+                stream = new SharedStream<>(key, type, upstream,
+                    bufferStrategy != null ? bufferStrategy.getCapacity() : 1);
+                STREAMS.put(key, stream);
+            } else {
+                stream = existing.as(type);
+            }
+            stream.refCount++;
+        }
+        Reference reference = new Reference(stream, retainedOwner);
+        dispatcher.addListener(reference);
+        if (dispatcher.getCurrentState() == Lifecycle.State.DESTROYED) {
+            // Destroyed before or while being added, which the reference handles being told about twice
+            reference.onStateChange(Lifecycle.State.DESTROYED);
+        }
+        return stream.replay;
+    }
+
+    /**
+     * Only called on the main thread when the LifecycleOwner is destroyed, which is when this is known.
+     */
+    static boolean isChangingConfigurations(@Nullable LifecycleOwner lifecycleOwner) {
+        if (lifecycleOwner instanceof ConfigurationChangeAware) {
+            return ((ConfigurationChangeAware) lifecycleOwner).isChangingConfigurations();
+        } else if (lifecycleOwner instanceof Activity) {
+            return ((Activity) lifecycleOwner).isChangingConfigurations();
+        } else if (lifecycleOwner instanceof Fragment) {
+            Activity activity = ((Fragment) lifecycleOwner).getActivity();
+            return activity != null && activity.isChangingConfigurations();
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of keys with a shared stream, for tests.
+     */
+    static int size() {
+        synchronized (STREAMS) {
+            return STREAMS.size();
+        }
+    }
+
+    private static final class SharedStream<T> implements Consumer<Disposable> {
+
+        @NonNull private final Object key;
+        @NonNull private final Class<T> type;
+        @NonNull private final Observable<T> replay;
+        private int refCount;
+        /**
+         * Set once the first observer subscribes, guarded by the STREAMS lock.
+         */
+        @Nullable private Disposable connection;
+        private boolean released;
+
+        SharedStream(@NonNull Object key, @NonNull Class<T> type, @NonNull Observable<T> upstream, int replaySize) {
+            this.key = key;
+            this.type = type;
+            // One buffer for every observer, only subscribed to upstream once the first of them is active
+            this.replay = upstream.replay(replaySize).autoConnect(1, this);
+        }
+
+        /**
+         * @throws IllegalArgumentException unless this stream was bound with the same type.
+         */
+        @NonNull
+        @SuppressWarnings("unchecked") // Checked against the type it was created with
+        <R> SharedStream<R> as(@NonNull Class<R> type) {
+            if (this.type != type) {
+                throw new IllegalArgumentException("Key " + key + " is already shared by a stream of "
+                    + this.type.getName() + ", not " + type.getName());
+            }
+            return (SharedStream<R>) this;
+        }
+
+        @Override
+        public void accept(final Disposable connection) throws Exception {
+            boolean release;
+            synchronized (STREAMS) {
+                this.connection = connection;
+                release = released;
+            }
+            if (release) {
+                connection.dispose();
+            }
+        }
+
+        void release() {
+            Disposable connection;
+            synchronized (STREAMS) {
+                if (--refCount > 0) {
+                    return;
+                }
+                released = true;
+                STREAMS.remove(key);
+                connection = this.connection;
+                this.connection = null;
+            }
+            if (connection != null) {
+                connection.dispose();
+            }
+        }
+    }
+
+    /**
+     * One bind's hold on a shared stream, let go of once its LifecycleOwner is destroyed.
+     */
+    private static final class Reference implements LifecycleDispatcher.Listener, Runnable {
+
+        @Nullable private SharedStream<?> stream;
+        /**
+         * Only set for retained binds, weakly so the dispatcher's listeners don't keep it from being collected.
+         */
+        @Nullable private final WeakReference<LifecycleOwner> retainedOwner;
+
+        Reference(@NonNull SharedStream<?> stream, @Nullable LifecycleOwner retainedOwner) {
+            this.stream = stream;
+            this.retainedOwner = retainedOwner != null ? new WeakReference<>(retainedOwner) : null;
+        }
+
+        @Override
+        public synchronized void onStateChange(@NonNull Lifecycle.State state) {
+            if (state != Lifecycle.State.DESTROYED || stream == null) {
+                return;
+            }
+            if (retainedOwner != null && isChangingConfigurations(retainedOwner.get())) {
+                retainedOwner.clear();
+                // Let go once the recreated LifecycleOwner has had the chance to bind
+                MainThreadHandoff.post(this);
+                return;
+            }
+            run();
+        }
+
+        @Override
+        public synchronized void run() {
+            if (stream != null) {
+                stream.release();
+                stream = null;
+            }
+        }
+    }
+}
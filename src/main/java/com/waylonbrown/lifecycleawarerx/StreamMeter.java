@@ -0,0 +1,209 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+
+import com.waylonbrown.lifecycleawarerx.buffer.Serializer;
+import com.waylonbrown.lifecycleawarerx.metrics.BoundStream;
+import com.waylonbrown.lifecycleawarerx.metrics.LifecycleRxMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+
+/**
+ * Reports what happens to the items of one bound stream to {@link LifecycleRxMetrics}. Only created when a listener is
+ * set, in which case items are stamped with the time they're emitted on their way into the stream, and unwrapped again
+ * right before they're delivered. Streams bound without a listener never go through any of this.
+ */
+final class StreamMeter {
+
+    private static final int STAMP_BYTES = 8;
+
+    @NonNull private final LifecycleRxMetrics metrics;
+    @NonNull private final BoundStream stream;
+    @NonNull private final LifecycleDispatcher dispatcher;
+    @NonNull private final Lifecycle.State activeState;
+    private final boolean pausing;
+    private final long boundAtNanos = System.nanoTime();
+    private volatile boolean subscribed;
+
+    @NonNull
+    private final Function<Object, Stamped<Object>> stamp = new Function<Object, Stamped<Object>>() {
+        @Override
+        public Stamped<Object> apply(final Object item) throws Exception {
+            if (!subscribed || (pausing && !dispatcher.getCurrentState().isAtLeast(activeState))) {
+                metrics.onBuffered(stream);
+            }
+            return new Stamped<>(item, System.nanoTime());
+        }
+    };
+    @NonNull
+    private final Function<Stamped<Object>, Object> unstamp = new Function<Stamped<Object>, Object>() {
+        @Override
+        public Object apply(final Stamped<Object> stamped) throws Exception {
+            return stamped.value;
+        }
+    };
+    @NonNull
+    private final Consumer<Object> onSubscribe = new Consumer<Object>() {
+        @Override
+        public void accept(final Object subscription) throws Exception {
+            subscribed = true;
+            metrics.onSubscribed(stream, System.nanoTime() - boundAtNanos);
+        }
+    };
+
+    StreamMeter(@NonNull LifecycleRxMetrics metrics, @NonNull LifecycleOwner lifecycleOwner,
+                @NonNull LifecycleDispatcher dispatcher, @NonNull BindOptions bindOptions) {
+        this.metrics = metrics;
+        this.stream = BoundStream.create(lifecycleOwner.getClass().getName());
+        this.dispatcher = dispatcher;
+        this.activeState = bindOptions.getActiveState();
+        this.pausing = bindOptions.getPausedBelow() != null;
+    }
+
+    /**
+     * @return function wrapping each item along with the time it was emitted, reporting those that will be held.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    <T> Function<T, Stamped<T>> stamp() {
+        return (Function<T, Stamped<T>>) (Function<?, ?>) stamp;
+    }
+
+    /**
+     * @return function getting back the item, once it's made it through the stream.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    <T> Function<Stamped<T>, T> unstamp() {
+        return (Function<Stamped<T>, T>) (Function<?, ?>) unstamp;
+    }
+
+    /**
+     * @return consumer for doOnSubscribe() of the stream, which is called once the observer is subscribed.
+     */
+    @NonNull
+    Consumer<Object> onSubscribe() {
+        return onSubscribe;
+    }
+
+    /**
+     * @return the same filter as the given one for stamped items, which reports them as delivered or dropped.
+     */
+    @NonNull
+    <T> Predicate<Stamped<T>> deliveredIfNotDestroyed(@NonNull final FilterIfDestroyedPredicate<T> filter) {
+        return new Predicate<Stamped<T>>() {
+            @Override
+            public boolean test(final Stamped<T> stamped) throws Exception {
+                return report(filter.test(stamped.value), stamped);
+            }
+        };
+    }
+
+    /**
+     * @return same as {@link #deliveredIfNotDestroyed(FilterIfDestroyedPredicate)} for each item of a batch.
+     */
+    @NonNull
+    <T> Predicate<List<Stamped<T>>> batchDeliveredIfNotDestroyed(
+            @NonNull final FilterIfDestroyedPredicate<List<Stamped<T>>> filter) {
+        return new Predicate<List<Stamped<T>>>() {
+            @Override
+            public boolean test(final List<Stamped<T>> batch) throws Exception {
+                boolean notDestroyed = filter.test(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    report(notDestroyed, batch.get(i));
+                }
+                return notDestroyed;
+            }
+        };
+    }
+
+    /**
+     * @return function getting back the items of a batch.
+     */
+    @NonNull
+    <T> Function<List<Stamped<T>>, List<T>> unstampBatch() {
+        return new Function<List<Stamped<T>>, List<T>>() {
+            @Override
+            public List<T> apply(final List<Stamped<T>> batch) throws Exception {
+                List<T> items = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    items.add(batch.get(i).value);
+                }
+                return items;
+            }
+        };
+    }
+
+    private boolean report(boolean notDestroyed, @NonNull Stamped<?> stamped) {
+        if (notDestroyed) {
+            metrics.onDelivered(stream, System.nanoTime() - stamped.emittedAtNanos);
+        } else {
+            metrics.onDroppedAfterDestroy(stream);
+        }
+        return notDestroyed;
+    }
+
+    /**
+     * @return function getting the key of a wrapped item, for streams holding the latest item per key.
+     */
+    @NonNull
+    static <T, K> Function<Stamped<T>, K> keyOf(@NonNull final Function<? super T, K> keySelector) {
+        return new Function<Stamped<T>, K>() {
+            @Override
+            public K apply(final Stamped<T> stamped) throws Exception {
+                return keySelector.apply(stamped.value);
+            }
+        };
+    }
+
+    /**
+     * @return serializer for wrapped items, for streams spilling to disk, which writes the time each was emitted at 
+     *      before the item.
+     */
+    @NonNull
+    static <T> Serializer<Stamped<T>> serializerOf(@NonNull final Serializer<T> serializer) {
+        return new Serializer<Stamped<T>>() {
+            @NonNull
+            @Override
+            public byte[] serialize(@NonNull final Stamped<T> stamped) throws IOException {
+                byte[] value = serializer.serialize(stamped.value);
+                return ByteBuffer.allocate(STAMP_BYTES + value.length)
+                    .putLong(stamped.emittedAtNanos)
+                    .put(value)
+                    .array();
+            }
+
+            @NonNull
+            @Override
+            public Stamped<T> deserialize(@NonNull final byte[] bytes) throws IOException {
+                long emittedAtNanos = ByteBuffer.wrap(bytes).getLong();
+                T value = serializer.deserialize(Arrays.copyOfRange(bytes, STAMP_BYTES, bytes.length));
+                return new Stamped<>(value, emittedAtNanos);
+            }
+        };
+    }
+
+    /**
+     * An item along with when it was emitted by the upstream.
+     */
+    static final class Stamped<T> {
+
+        final T value;
+        final long emittedAtNanos;
+
+        Stamped(T value, long emittedAtNanos) {
+            this.value = value;
+            this.emittedAtNanos = emittedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.LifecycleOwner;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.waylonbrown.lifecycleawarerx.buffer.Connectable;
+import com.waylonbrown.lifecycleawarerx.buffer.Pausable;
+import com.waylonbrown.lifecycleawarerx.buffer.SpillingObservable;
+import com.waylonbrown.lifecycleawarerx.buffer.Trimmable;
+import com.waylonbrown.lifecycleawarerx.delivery.FrameClock;
+import com.waylonbrown.lifecycleawarerx.delivery.FrameCoalescingObservable;
+import com.waylonbrown.lifecycleawarerx.metrics.LifecycleRxMetrics;
+import com.waylonbrown.lifecycleawarerx.reactivetypes.BaseReactiveTypeWithObserver;
+
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+
+/**
+ * Everything a transformer sets up for a bound stream besides the buffer its items are held in: subscribing once the
+ * {@link LifecycleOwner} is active, registering, pausing and connecting the buffer, delivering on frames, metrics,
+ * disposing once the LifecycleOwner is destroyed, and releasing the listeners kept for the stream once it's done.
+ * Observables are wired up in one go by {@link #deliver(Observable, BufferFactory)}, given the buffer to hold them in.
+ *
+ * @param <T> stream inner type
+ * @param <R> reactive type
+ * @param <O> observer type
+ */
+final class StreamWiring<T, R, O> {
+
+	/**
+	 * Builds the buffer a bound Observable's items are held in until they're delivered, which is all that differs
+	 * between transformers.
+	 *
+	 * @param <T> stream inner type
+	 * @param <D> what's delivered to the observer
+	 * @param <S> the same made of {@link StreamMeter.Stamped} items, when the stream is metered
+	 */
+	interface BufferFactory<T, D, S> {
+
+		@NonNull
+		Observable<D> buffer(@NonNull Observable<T> upstream);
+
+		@NonNull
+		Observable<S> bufferStamped(@NonNull Observable<StreamMeter.Stamped<T>> upstream);
+
+		/**
+		 * @return filter for what's delivered once the LifecycleOwner is destroyed, reporting each item as delivered
+		 *      or dropped.
+		 */
+		@NonNull
+		Predicate<S> deliveredIfNotDestroyed(@NonNull StreamMeter streamMeter);
+
+		@NonNull
+		Function<S, D> unstamp(@NonNull StreamMeter streamMeter);
+	}
+
+	@NonNull
+	private final BaseReactiveTypeWithObserver<R, O> baseReactiveType;
+	@NonNull
+	private final SubscribeWhenReadyObserver<R, O> lifecycleObserver;
+	@NonNull
+	private final BindOptions bindOptions;
+	/**
+	 * Shared with every other stream bound to the same LifecycleOwner.
+	 */
+	@NonNull
+	private final LifecycleDispatcher dispatcher;
+	/**
+	 * Only set when the upstream should be disposed once the LifecycleOwner is destroyed.
+	 */
+	@Nullable
+	private final DisposeOnDestroyObserver disposeOnDestroyObserver;
+	/**
+	 * Only set when there's a {@link LifecycleRxMetrics} listener for this stream.
+	 */
+	@Nullable
+	private final StreamMeter streamMeter;
+	/**
+	 * Only set while a {@link LeakDetector} is.
+	 */
+	@Nullable
+	private final LeakDetector.Binding leakBinding;
+	/**
+	 * Only set when the stream is bound to pause, once it's been applied.
+	 */
+	@Nullable
+	private PauseWhenInactiveObserver pauseWhenInactiveObserver;
+	/**
+	 * Only set when the stream spills to disk, once it's been applied.
+	 */
+	@Nullable
+	private ReleaseSpillOnDestroyObserver releaseSpillOnDestroyObserver;
+	/**
+	 * Stops the listeners kept for this stream once it terminates or is disposed, rather than having the dispatcher
+	 * hold on to them, and through them the buffer and upstream, until the LifecycleOwner is destroyed.
+	 */
+	@NonNull
+	private final Action releaseListeners = new Action() {
+		@Override
+		public void run() throws Exception {
+			if (disposeOnDestroyObserver != null) {
+				disposeOnDestroyObserver.release();
+			}
+			if (pauseWhenInactiveObserver != null) {
+				pauseWhenInactiveObserver.release();
+			}
+			if (releaseSpillOnDestroyObserver != null) {
+				releaseSpillOnDestroyObserver.release();
+			}
+		}
+	};
+
+	/**
+	 * @param disposedByOperator whether an operator of the stream's own already disposes the upstream once the
+	 *      LifecycleOwner is destroyed, such as the fused {@link LifecycleOperator}.
+	 */
+	StreamWiring(@NonNull LifecycleOwner lifecycleOwner, @NonNull BaseReactiveTypeWithObserver<R, O> baseReactiveType,
+				 @NonNull BindOptions bindOptions, boolean disposedByOperator) {
+		this.baseReactiveType = baseReactiveType;
+		this.bindOptions = bindOptions;
+		this.dispatcher = LifecycleDispatcher.get(lifecycleOwner);
+		this.lifecycleObserver = new SubscribeWhenReadyObserver<>(dispatcher, bindOptions.getActiveState());
+		LifecycleRxMetrics metrics = LifecycleBinder.metricsFor(bindOptions);
+		this.streamMeter = metrics == null ? null : new StreamMeter(metrics, lifecycleOwner, dispatcher, bindOptions);
+		this.disposeOnDestroyObserver = bindOptions.getDestroyMode() == DestroyMode.FILTER || disposedByOperator
+			? null
+			: new DisposeOnDestroyObserver(dispatcher);
+		LeakDetector leakDetector = LifecycleBinder.leakDetector();
+		this.leakBinding = leakDetector == null
+			? null
+			: leakDetector.track(lifecycleOwner, dispatcher, baseReactiveType.getObserver());
+	}
+
+	@NonNull
+	LifecycleDispatcher getDispatcher() {
+		return dispatcher;
+	}
+
+	@Nullable
+	StreamMeter getStreamMeter() {
+		return streamMeter;
+	}
+
+	/**
+	 * @return the upstream held in the buffer the factory builds until it's delivered, which is metered, delivered on
+	 *      frames and filtered out once the LifecycleOwner is destroyed as the BindOptions ask.
+	 */
+	@NonNull
+	<D, S> Observable<D> deliver(@NonNull Observable<T> upstream, @NonNull BufferFactory<T, D, S> bufferFactory) {
+		Observable<D> transformedStream;
+		if (streamMeter == null) {
+			transformedStream = deliverOnFrames(bufferFactory.buffer(trackUpstream(upstream)))
+				.filter(new FilterIfDestroyedPredicate<D>(dispatcher)); // Filter to stop emitting items once destroyed
+		} else {
+			transformedStream = deliverOnFrames(bufferFactory.bufferStamped(
+					trackUpstream(upstream).map(streamMeter.<T>stamp())))
+				.filter(bufferFactory.deliveredIfNotDestroyed(streamMeter))
+				.map(bufferFactory.unstamp(streamMeter))
+				.doOnSubscribe(streamMeter.onSubscribe());
+		}
+		// Note: with Observables, takeWhile() can be used instead of filter() to end the stream immediately, though
+		// we're not doing so here since it calls the onComplete(), unless that's what the DestroyMode asks for.
+		if (completesOnDestroy()) {
+			transformedStream = transformedStream.takeUntil(destroySignal());
+		}
+		if (hasListeners()) {
+			transformedStream = transformedStream.doFinally(releaseListeners);
+		}
+		return transformedStream;
+	}
+
+	/**
+	 * Registers the buffer to be trimmed under memory pressure, pauses it below the active state if the stream is bound
+	 * to pause, and connects it to its upstream once the state the BindOptions ask for is reached.
+	 */
+	<B extends Pausable & Connectable & Trimmable> void pauseAndConnect(@NonNull B buffer) {
+		BufferRegistry.register(buffer, dispatcher);
+		if (bindOptions.getPausedBelow() != null) {
+			// Also divert items back into the buffer whenever the LifecycleOwner drops below the active state
+			pauseWhenInactiveObserver = new PauseWhenInactiveObserver(dispatcher, bindOptions.getActiveState(), buffer,
+				bindOptions.getResumeScheduler(), bindOptions.getPriority());
+		}
+		ConnectWhenReachedObserver.connect(dispatcher, bindOptions, buffer);
+	}
+
+	/**
+	 * Deletes the buffer's file once the LifecycleOwner is destroyed, or once the stream is done if that's sooner.
+	 */
+	void releaseOnDestroy(@NonNull SpillingObservable<?> buffer) {
+		releaseSpillOnDestroyObserver = new ReleaseSpillOnDestroyObserver(dispatcher, buffer);
+	}
+
+	/**
+	 * Placed before the destroyed filter, so items are checked against the state at the time they're delivered rather
+	 * than when they were queued for the next frame.
+	 */
+	@NonNull
+	private <V> Observable<V> deliverOnFrames(@NonNull Observable<V> upstream) {
+		FrameClock frameClock = bindOptions.getFrameClock();
+		return frameClock != null ? new FrameCoalescingObservable<>(upstream, frameClock) : upstream;
+	}
+
+	@NonNull
+	Observable<T> trackUpstream(@NonNull Observable<T> upstream) {
+		return disposeOnDestroyObserver != null ? disposeOnDestroyObserver.trackUpstream(upstream) : upstream;
+	}
+
+	@NonNull
+	Single<T> trackUpstream(@NonNull Single<T> upstream) {
+		return disposeOnDestroyObserver != null ? disposeOnDestroyObserver.trackUpstream(upstream) : upstream;
+	}
+
+	@NonNull
+	Maybe<T> trackUpstream(@NonNull Maybe<T> upstream) {
+		return disposeOnDestroyObserver != null ? disposeOnDestroyObserver.trackUpstream(upstream) : upstream;
+	}
+
+	@NonNull
+	Flowable<T> trackUpstream(@NonNull Flowable<T> upstream) {
+		return disposeOnDestroyObserver != null ? disposeOnDestroyObserver.trackUpstream(upstream) : upstream;
+	}
+
+	boolean completesOnDestroy() {
+		return disposeOnDestroyObserver != null && bindOptions.getDestroyMode() == DestroyMode.DISPOSE_AND_COMPLETE;
+	}
+
+	/**
+	 * Only called when {@link #completesOnDestroy()}.
+	 */
+	@NonNull
+	Observable<Object> destroySignal() {
+		return disposeOnDestroyObserver.destroySignal();
+	}
+
+	boolean hasListeners() {
+		return disposeOnDestroyObserver != null || pauseWhenInactiveObserver != null
+			|| releaseSpillOnDestroyObserver != null;
+	}
+
+	@NonNull
+	Action releaseListeners() {
+		return releaseListeners;
+	}
+
+	/**
+	 * Hands the transformed stream to the observer once the LifecycleOwner is active.
+	 */
+	void setReactiveType(@NonNull R transformedStream) {
+		baseReactiveType.setReactiveType(transformedStream);
+		if (leakBinding != null) {
+			leakBinding.setStream(transformedStream);
+		}
+		lifecycleObserver.setBaseReactiveType(baseReactiveType);
+	}
+}
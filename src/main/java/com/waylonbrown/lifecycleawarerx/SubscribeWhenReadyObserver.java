@@ -1,62 +1,83 @@
 package com.waylonbrown.lifecycleawarerx;
 
 import android.arch.lifecycle.Lifecycle;
-import android.arch.lifecycle.LifecycleObserver;
 import android.arch.lifecycle.LifecycleOwner;
-import android.arch.lifecycle.OnLifecycleEvent;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.waylonbrown.lifecycleawarerx.reactivetypes.BaseReactiveTypeWithObserver;
-import com.waylonbrown.lifecycleawarerx.util.LifecycleUtil;
 
 /**
  * Observes state changes that happen to the {@link LifecycleOwner}, and subscribes to the stream once the lifecycle is 
- * active.
+ * active, which is STARTED unless the stream was bound to pause below RESUMED.
+ *
+ * Always subscribes on the main thread, even when the stream was bound on another one, in which case checking whether
+ * the lifecycle is already active is handed off to the main thread.
  * 
  * @param <R> base reactive type
  * @param <O> observer type
  */
-public class SubscribeWhenReadyObserver<R, O> implements LifecycleObserver {
+public class SubscribeWhenReadyObserver<R, O> implements LifecycleDispatcher.Listener {
     /**
-     * Since we're holding a reference to the LifecycleOwner, it's important that we remove this reference as soon
-     * as it reaches a destroyed state to prevent a memory leak. Not using @NonNull since it is to later be set to null.
+     * Once subscribed or destroyed this isn't needed anymore, so it's set to null at that point.
      */
     @Nullable // Since it's later set to null
-    private LifecycleOwner lifecycleOwner;
+    private LifecycleDispatcher dispatcher;
+    @NonNull
+    private final Lifecycle.State activeState;
     
+    /**
+     * Set on whichever thread the stream is bound on, everything else here is only used on the main thread.
+     */
     @Nullable
-    private BaseReactiveTypeWithObserver<R, O> baseReactiveType;
+    private volatile BaseReactiveTypeWithObserver<R, O> baseReactiveType;
     private boolean subscribed = false;
 
-    SubscribeWhenReadyObserver(@NonNull final LifecycleOwner lifecycleOwner) {
-        this.lifecycleOwner = lifecycleOwner;
-        lifecycleOwner.getLifecycle().addObserver(this);
+    SubscribeWhenReadyObserver(@NonNull final LifecycleDispatcher dispatcher) {
+        this(dispatcher, Lifecycle.State.STARTED);
+    }
+
+    SubscribeWhenReadyObserver(@NonNull final LifecycleDispatcher dispatcher, @NonNull final Lifecycle.State activeState) {
+        this.dispatcher = dispatcher;
+        this.activeState = activeState;
+        dispatcher.addListener(this);
     }
 
-    @SuppressWarnings("unused")
-    @OnLifecycleEvent(Lifecycle.Event.ON_ANY)
-    void onStateChange() {
-        handleCurrentLifecycleState();
+    @Override
+    public void onStateChange(@NonNull final Lifecycle.State state) {
+        handleLifecycleState(state);
     }
 
     void setBaseReactiveType(@NonNull final BaseReactiveTypeWithObserver<R, O> baseReactiveType) {
         this.baseReactiveType = baseReactiveType;
-        handleCurrentLifecycleState();
+        if (MainThreadHandoff.isMainThread()) {
+            handleCurrentLifecycleState();
+        } else {
+            MainThreadHandoff.post(new Runnable() {
+                @Override
+                public void run() {
+                    handleCurrentLifecycleState();
+                }
+            });
+        }
+    }
+
+    private void handleCurrentLifecycleState() {
+        if (dispatcher != null) {
+            handleLifecycleState(dispatcher.getCurrentState());
+        }
     }
     
     /**
      * Decides whether the stream needs to be destroyed or subscribed to.
      */
-    private void handleCurrentLifecycleState() {
-        if (lifecycleOwner != null &&
-            lifecycleOwner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
-
-            // No memory leaks please
-            this.lifecycleOwner.getLifecycle().removeObserver(this);
-            this.lifecycleOwner = null;
+    private void handleLifecycleState(@NonNull final Lifecycle.State state) {
+        BaseReactiveTypeWithObserver<R, O> baseReactiveType = this.baseReactiveType;
+        if (state == Lifecycle.State.DESTROYED) {
+            // No memory leaks please. The dispatcher drops all of its listeners on its own once destroyed.
+            this.dispatcher = null;
             this.baseReactiveType = null;
-        } else if (LifecycleUtil.isInActiveState(lifecycleOwner) 
+        } else if (state.isAtLeast(activeState)
             && !subscribed 
             && baseReactiveType != null) {
             
@@ -64,27 +85,12 @@ public class SubscribeWhenReadyObserver<R, O> implements LifecycleObserver {
             baseReactiveType.subscribeWithObserver();
 
             subscribed = true;
+            // Nothing left to do on later state changes
+            if (dispatcher != null) {
+                dispatcher.removeListener(this);
+                dispatcher = null;
+            }
+            this.baseReactiveType = null;
         }
     }
-
-    /**
-     * We're overriding the equals() and hashCode() so that when
-     * {@link android.arch.lifecycle.LifecycleRegistry#addObserver(LifecycleObserver)}
-     * works its magic, it will replace a previously set observer from this class that has the
-     * same {@link LifecycleOwner}.
-     */
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-
-        SubscribeWhenReadyObserver that = (SubscribeWhenReadyObserver) o;
-
-        return lifecycleOwner != null ? lifecycleOwner.equals(that.lifecycleOwner) : that.lifecycleOwner == null;
-    }
-
-    @Override
-    public int hashCode() {
-        return lifecycleOwner != null ? lifecycleOwner.hashCode() : 0;
-    }
 }
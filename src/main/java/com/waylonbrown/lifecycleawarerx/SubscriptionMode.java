@@ -0,0 +1,27 @@
+package com.waylonbrown.lifecycleawarerx;
+
+import android.arch.lifecycle.LifecycleOwner;
+
+import com.waylonbrown.lifecycleawarerx.buffer.BufferStrategy;
+
+/**
+ * When a bound stream's upstream is subscribed to, set with {@link BindOptions#withSubscriptionMode}. Items emitted 
+ * before the {@link LifecycleOwner} is active are held either way, and delivered once it is. Flowables are always 
+ * subscribed to once the LifecycleOwner is active, since they already stop requesting items while it isn't.
+ */
+public enum SubscriptionMode {
+    /**
+     * Not until the LifecycleOwner is active, so no work is done for a screen that's never shown. The default, unless 
+     * a {@link BufferStrategy} or pausing is set.
+     */
+    LAZY_ON_ACTIVE,
+    /**
+     * Once the LifecycleOwner is CREATED, so slow work such as I/O overlaps with the rest of its setup and the result 
+     * is more likely to be ready by the time it's started.
+     */
+    PREFETCH_ON_CREATED,
+    /**
+     * As soon as the stream is bound. The default when a {@link BufferStrategy} or pausing is set.
+     */
+    EAGER_ON_BIND
+}
@@ -0,0 +1,96 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+
+/**
+ * Like {@link BufferingObservable}, but for an upstream of batches. Items from every batch emitted while there's no
+ * observer yet or while paused are held in one {@link RingBuffer} according to a {@link BufferStrategy}, then delivered
+ * together as a single batch. Batches after that are passed straight through to the observer, so the observer gets
+ * one update for everything it missed rather than one per item. Holding and delivery otherwise work the same as for
+ * {@link BufferingObservable}, through {@link RingBufferObserver}.
+ *
+ * @param <T> stream inner type
+ */
+public final class BatchingObservable<T> extends Observable<List<T>> implements Pausable, Connectable, Trimmable {
+
+    @NonNull private final ObservableSource<? extends List<T>> source;
+    @NonNull private final BatchingObserver<T> batchingObserver;
+
+    public BatchingObservable(@NonNull ObservableSource<? extends List<T>> source,
+                              @NonNull BufferStrategy bufferStrategy) {
+        this.source = source;
+        this.batchingObserver = new BatchingObserver<>(bufferStrategy);
+    }
+
+    /**
+     * Subscribes to the upstream, from then on items are held until an observer subscribes.
+     */
+    @Override
+    public void connect() {
+        source.subscribe(batchingObserver);
+    }
+
+    @Override
+    public void setPaused(boolean paused) {
+        batchingObserver.setPaused(paused);
+    }
+
+    @Override
+    public int trim(int keep) {
+        return batchingObserver.trim(keep);
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super List<T>> observer) {
+        batchingObserver.attach(observer);
+    }
+
+    static final class BatchingObserver<T> extends RingBufferObserver<List<T>, T> {
+
+        BatchingObserver(@NonNull BufferStrategy bufferStrategy) {
+            super(bufferStrategy);
+        }
+
+        @Override
+        public void onNext(List<T> batch) {
+            if (!batch.isEmpty()) {
+                super.onNext(batch);
+            }
+        }
+
+        @Override
+        void hold(@NonNull List<T> batch) {
+            long now = now();
+            evictExpired(now);
+            // Stops at the first item that doesn't fit if the strategy errors on overflow
+            for (int i = 0; i < batch.size() && !isDone(); i++) {
+                offer(batch.get(i), now);
+            }
+        }
+
+        /**
+         * @return everything held as one batch.
+         */
+        @Nullable
+        @Override
+        List<T> poll() {
+            if (buffer.isEmpty()) {
+                return null;
+            }
+            List<T> batch = new ArrayList<>(buffer.size());
+            T item;
+            while ((item = buffer.poll()) != null) {
+                batch.add(item);
+            }
+            return batch;
+        }
+    }
+}
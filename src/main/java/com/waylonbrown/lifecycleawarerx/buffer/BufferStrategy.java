@@ -0,0 +1,236 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.waylonbrown.lifecycleawarerx.util.Ticker;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how many items are held for an Observable while its {@link android.arch.lifecycle.LifecycleOwner} isn't 
+ * active yet, and what happens to items emitted once that limit is reached. Each strategy is backed by a 
+ * {@link RingBuffer} sized up front. Every strategy but {@link #drainAndRelease()} keeps it at that size, so the heap 
+ * taken up stays bounded no matter how long the LifecycleOwner stays inactive. drainAndRelease() grows it instead of 
+ * dropping anything, so memory is only bounded by how much is emitted before the items are delivered.
+ * 
+ * Passing a strategy to {@link com.waylonbrown.lifecycleawarerx.LifecycleBinder} subscribes to the upstream as soon 
+ * as the stream is bound rather than waiting for the LifecycleOwner to be active. Unlike cache(), items are only held 
+ * until the bound observer receives them, after which they're released and new items are passed straight through.
+ * 
+ * Singles and Maybes only ever hold their one result, so any strategy has them hold it until it's delivered and then
+ * release it.
+ * 
+ * Held items can also be given a maximum age with {@link #withMaxAge}, for things like prices or locations that are 
+ * no use once they're stale. Only Observables evict items by age.
+ * 
+ * For large items held while the LifecycleOwner can be in the background for minutes, {@link #spillToDisk} only holds 
+ * a few of them on the heap and the rest in a file.
+ */
+public final class BufferStrategy {
+
+    enum OverflowMode {
+        /** Evicts the oldest held item to make room for the new one. */
+        DROP_OLDEST,
+        /** Keeps the held items and discards the new one. */
+        DROP_NEWEST,
+        /** Ends the stream with a {@link io.reactivex.exceptions.MissingBackpressureException}. */
+        ERROR,
+        /** Grows the buffer, nothing is ever dropped. */
+        GROW
+    }
+
+    private static final int DRAIN_AND_RELEASE_INITIAL_CAPACITY = 16;
+
+    /**
+     * Notified every time an item is discarded because the buffer was full.
+     */
+    public interface DropListener {
+        /**
+         * @param droppedCount total number of items dropped so far by the stream that just dropped one.
+         */
+        void onDropped(long droppedCount);
+    }
+
+    /**
+     * Notified every time held items are evicted for being older than the strategy's maximum age.
+     */
+    public interface ExpiryListener {
+        /**
+         * @param expiredCount total number of items evicted for their age so far by the stream that just evicted some.
+         */
+        void onExpired(long expiredCount);
+    }
+
+    @NonNull private final OverflowMode overflowMode;
+    private final int capacity;
+    @Nullable private final DropListener dropListener;
+    /**
+     * 0 when held items are kept no matter how old they get.
+     */
+    private final long maxAgeNanos;
+    @NonNull private final Ticker ticker;
+    @Nullable private final ExpiryListener expiryListener;
+    /**
+     * Both only set when items past the capacity are spilled to a file.
+     */
+    @Nullable private final File spillDirectory;
+    @Nullable private final Serializer<?> serializer;
+
+    private BufferStrategy(@NonNull OverflowMode overflowMode, int capacity, @Nullable DropListener dropListener) {
+        this(overflowMode, capacity, dropListener, 0L, Ticker.SYSTEM, null, null, null);
+    }
+
+    private BufferStrategy(@NonNull OverflowMode overflowMode, int capacity, @Nullable DropListener dropListener,
+                           long maxAgeNanos, @NonNull Ticker ticker, @Nullable ExpiryListener expiryListener,
+                           @Nullable File spillDirectory, @Nullable Serializer<?> serializer) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive but was " + capacity);
+        }
+        this.overflowMode = overflowMode;
+        this.capacity = capacity;
+        this.dropListener = dropListener;
+        this.maxAgeNanos = maxAgeNanos;
+        this.ticker = ticker;
+        this.expiryListener = expiryListener;
+        this.spillDirectory = spillDirectory;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Only holds on to the most recent item.
+     */
+    public static BufferStrategy latestOnly() {
+        return new BufferStrategy(OverflowMode.DROP_OLDEST, 1, null);
+    }
+
+    /**
+     * Holds on to the most recent {@code count} items, evicting the oldest ones.
+     */
+    public static BufferStrategy lastItems(int count) {
+        return new BufferStrategy(OverflowMode.DROP_OLDEST, count, null);
+    }
+
+    /**
+     * Holds on to the first {@code capacity} items and discards anything emitted after that.
+     */
+    public static BufferStrategy dropNewest(int capacity) {
+        return new BufferStrategy(OverflowMode.DROP_NEWEST, capacity, null);
+    }
+
+    /**
+     * Holds on to up to {@code capacity} items and errors the stream with a
+     * {@link io.reactivex.exceptions.MissingBackpressureException} if any more are emitted.
+     */
+    public static BufferStrategy errorOnOverflow(int capacity) {
+        return new BufferStrategy(OverflowMode.ERROR, capacity, null);
+    }
+
+    /**
+     * Holds on to every item like cache() does, but only until the bound observer receives them. The buffer is then 
+     * shrunk back to its initial size so the memory retained doesn't grow with how long the stream runs.
+     */
+    public static BufferStrategy drainAndRelease() {
+        return new BufferStrategy(OverflowMode.GROW, DRAIN_AND_RELEASE_INITIAL_CAPACITY, null);
+    }
+
+    /**
+     * Holds the first {@code inMemory} items on the heap, and appends every item after that to a file in the given 
+     * directory through the serializer, so they don't take up the heap. Once the observer is active, spilled items are 
+     * read back and delivered one at a time after those on the heap, and the file is deleted once the last of them is 
+     * delivered or the LifecycleOwner is destroyed. Use a directory such as Context.getCacheDir(), which the system 
+     * clears of files left behind by a process that was killed.
+     * 
+     * Nothing is dropped, unless a file can't be written or read or an item can't be serialized, which ends the stream 
+     * with that error. Only Observables bound with {@code LifecycleBinder.bind()} spill, batched streams hold every 
+     * item on the heap like {@link #drainAndRelease()} does.
+     */
+    public static <T> BufferStrategy spillToDisk(int inMemory, @NonNull File directory,
+                                                 @NonNull Serializer<T> serializer) {
+        return new BufferStrategy(OverflowMode.GROW, inMemory, null, 0L, Ticker.SYSTEM, null, directory, serializer);
+    }
+
+    /**
+     * @return a copy of this strategy that reports dropped items to the given listener.
+     */
+    public BufferStrategy withDropListener(@Nullable DropListener dropListener) {
+        return new BufferStrategy(overflowMode, capacity, dropListener, maxAgeNanos, ticker, expiryListener,
+            spillDirectory, serializer);
+    }
+
+    /**
+     * @return a copy of this strategy that evicts held items once they're older than {@code maxAge}, so they're never
+     *      delivered. Items are checked as new ones are held and again right before held items are delivered.
+     */
+    public BufferStrategy withMaxAge(long maxAge, @NonNull TimeUnit unit) {
+        return withMaxAge(maxAge, unit, Ticker.SYSTEM);
+    }
+
+    /**
+     * @param ticker what the age of items is measured with.
+     */
+    public BufferStrategy withMaxAge(long maxAge, @NonNull TimeUnit unit, @NonNull Ticker ticker) {
+        if (maxAge <= 0L) {
+            throw new IllegalArgumentException("maxAge must be positive but was " + maxAge);
+        }
+        return new BufferStrategy(overflowMode, capacity, dropListener, unit.toNanos(maxAge), ticker, expiryListener,
+            spillDirectory, serializer);
+    }
+
+    /**
+     * @return a copy of this strategy that reports items evicted for their age to the given listener.
+     */
+    public BufferStrategy withExpiryListener(@Nullable ExpiryListener expiryListener) {
+        return new BufferStrategy(overflowMode, capacity, dropListener, maxAgeNanos, ticker, expiryListener,
+            spillDirectory, serializer);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return where items past the capacity are spilled to, or null if they're held on the heap.
+     */
+    @Nullable
+    public File getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * @return what spilled items are written with, set along with the spill directory.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> Serializer<T> getSerializer() {
+        return (Serializer<T>) serializer;
+    }
+
+    @NonNull
+    OverflowMode getOverflowMode() {
+        return overflowMode;
+    }
+
+    @Nullable
+    DropListener getDropListener() {
+        return dropListener;
+    }
+
+    /**
+     * @return the maximum age of held items, or 0 if they're kept no matter how old.
+     */
+    long getMaxAgeNanos() {
+        return maxAgeNanos;
+    }
+
+    @NonNull
+    Ticker getTicker() {
+        return ticker;
+    }
+
+    @Nullable
+    ExpiryListener getExpiryListener() {
+        return expiryListener;
+    }
+}
@@ -0,0 +1,149 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Maybe;
+import io.reactivex.MaybeObserver;
+import io.reactivex.MaybeSource;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.internal.disposables.EmptyDisposable;
+
+/**
+ * Replacement for cache() on Maybes (and Singles converted to Maybes) that subscribes to its upstream once
+ * {@link #connect()} is called and holds the result only until its one and only observer receives it. Unlike cache(),
+ * the result isn't kept around for the life of the stream once it's been delivered.
+ *
+ * @param <T> stream inner type
+ */
+public final class BufferingMaybe<T> extends Maybe<T> implements Connectable {
+
+    @NonNull private final MaybeSource<T> source;
+    @NonNull private final BufferingObserver<T> bufferingObserver = new BufferingObserver<>();
+
+    public BufferingMaybe(@NonNull MaybeSource<T> source) {
+        this.source = source;
+    }
+
+    /**
+     * Subscribes to the upstream, from then on the result is held until an observer subscribes.
+     */
+    @Override
+    public void connect() {
+        source.subscribe(bufferingObserver);
+    }
+
+    @Override
+    protected void subscribeActual(MaybeObserver<? super T> observer) {
+        bufferingObserver.attach(observer);
+    }
+
+    static final class BufferingObserver<T> implements MaybeObserver<T>, Disposable {
+
+        @NonNull private final AtomicReference<Disposable> upstream = new AtomicReference<>();
+
+        // Everything below is guarded by this
+        @Nullable private MaybeObserver<? super T> downstream;
+        private boolean done;
+        /**
+         * Also set once disposed, after which a result arriving late is ignored rather than held.
+         */
+        private boolean delivered;
+        @Nullable private T value;
+        @Nullable private Throwable error;
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            DisposableHelper.setOnce(upstream, d);
+        }
+
+        @Override
+        public void onSuccess(T value) {
+            synchronized (this) {
+                if (done || delivered) {
+                    return;
+                }
+                this.value = value;
+                this.done = true;
+            }
+            deliver();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            synchronized (this) {
+                if (done || delivered) {
+                    return;
+                }
+                this.error = e;
+                this.done = true;
+            }
+            deliver();
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (this) {
+                this.done = true;
+            }
+            deliver();
+        }
+
+        @Override
+        public void dispose() {
+            DisposableHelper.dispose(upstream);
+            synchronized (this) {
+                delivered = true;
+                value = null;
+                error = null;
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return DisposableHelper.isDisposed(upstream.get());
+        }
+
+        void attach(@NonNull MaybeObserver<? super T> observer) {
+            synchronized (this) {
+                if (downstream != null) {
+                    EmptyDisposable.error(new IllegalStateException("Only a single observer can be bound"), observer);
+                    return;
+                }
+                downstream = observer;
+            }
+            observer.onSubscribe(this);
+            deliver();
+        }
+
+        /**
+         * Hands the result to the observer once both are present, then lets go of the result.
+         */
+        private void deliver() {
+            MaybeObserver<? super T> observer;
+            T heldValue;
+            Throwable heldError;
+            synchronized (this) {
+                if (!done || delivered || downstream == null) {
+                    return;
+                }
+                delivered = true;
+                observer = downstream;
+                heldValue = value;
+                heldError = error;
+                value = null;
+                error = null;
+            }
+            if (heldValue != null) {
+                observer.onSuccess(heldValue);
+            } else if (heldError != null) {
+                observer.onError(heldError);
+            } else {
+                observer.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+
+/**
+ * Replacement for cache() that subscribes to its upstream once {@link #connect()} is called and holds emitted items in
+ * a {@link RingBuffer} according to a {@link BufferStrategy} until its one and only observer subscribes. The held items
+ * are then emitted in-order and every item after that is passed straight through to the observer.
+ *
+ * Delivery can also be paused again later with {@link #setPaused(boolean)}, in which case items are held the same way
+ * until it's unpaused. An item already being delivered on the upstream's thread when pausing may still arrive. Items
+ * are delivered one at a time and in-order even when the upstream emits on another thread while it's resumed, see
+ * {@link DrainingObserver}.
+ *
+ * If the strategy has a maximum age, held items older than that are evicted whenever another item is held and right
+ * before held items are delivered, so stale items are never delivered.
+ *
+ * @param <T> stream inner type
+ */
+public final class BufferingObservable<T> extends Observable<T> implements Pausable, Connectable, Trimmable {
+
+    @NonNull private final ObservableSource<T> source;
+    @NonNull private final BufferingObserver<T> bufferingObserver;
+
+    public BufferingObservable(@NonNull ObservableSource<T> source, @NonNull BufferStrategy bufferStrategy) {
+        this.source = source;
+        this.bufferingObserver = new BufferingObserver<>(bufferStrategy);
+    }
+
+    /**
+     * Subscribes to the upstream, from then on items are held until an observer subscribes.
+     */
+    @Override
+    public void connect() {
+        source.subscribe(bufferingObserver);
+    }
+
+    @Override
+    public void setPaused(boolean paused) {
+        bufferingObserver.setPaused(paused);
+    }
+
+    @Override
+    public int trim(int keep) {
+        return bufferingObserver.trim(keep);
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super T> observer) {
+        bufferingObserver.attach(observer);
+    }
+
+    static final class BufferingObserver<T> extends RingBufferObserver<T, T> {
+
+        BufferingObserver(@NonNull BufferStrategy bufferStrategy) {
+            super(bufferStrategy);
+        }
+
+        @Override
+        void hold(@NonNull T item) {
+            long now = now();
+            evictExpired(now);
+            offer(item, now);
+        }
+
+        @Nullable
+        @Override
+        T poll() {
+            return buffer.poll();
+        }
+    }
+}
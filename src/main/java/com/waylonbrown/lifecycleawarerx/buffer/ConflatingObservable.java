@@ -0,0 +1,120 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.Function;
+
+/**
+ * Like {@link BufferingObservable}, but for an upstream of updates to things with a key, such as messages or list rows
+ * by their id. While there's no observer yet or while paused, only the latest item for each key is held, in the order
+ * each key was first held in, so what's held grows with the number of distinct keys rather than with how often they're
+ * updated. The held items are then emitted in that order and every item after that is passed straight through, never
+ * conflated, one at a time through the same drain loop as the other buffers, see {@link DrainingObserver}.
+ *
+ * @param <T> stream inner type
+ * @param <K> key type
+ */
+public final class ConflatingObservable<T, K> extends Observable<T> implements Pausable, Connectable, Trimmable {
+
+    @NonNull private final ObservableSource<T> source;
+    @NonNull private final ConflatingObserver<T, K> conflatingObserver;
+
+    /**
+     * @param keySelector called for every item that's held, with items with equal keys replacing each other.
+     */
+    public ConflatingObservable(@NonNull ObservableSource<T> source, @NonNull Function<? super T, K> keySelector) {
+        this.source = source;
+        this.conflatingObserver = new ConflatingObserver<>(keySelector);
+    }
+
+    /**
+     * Subscribes to the upstream, from then on items are held until an observer subscribes.
+     */
+    @Override
+    public void connect() {
+        source.subscribe(conflatingObserver);
+    }
+
+    @Override
+    public void setPaused(boolean paused) {
+        conflatingObserver.setPaused(paused);
+    }
+
+    @Override
+    public int trim(int keep) {
+        return conflatingObserver.trim(keep);
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super T> observer) {
+        conflatingObserver.attach(observer);
+    }
+
+    static final class ConflatingObserver<T, K> extends DrainingObserver<T> {
+
+        @NonNull private final Function<? super T, K> keySelector;
+        // Guarded by this observer
+        /**
+         * Replaced rather than cleared once emptied, so the table grown while holding many keys is let go of.
+         */
+        @NonNull private LinkedHashMap<K, T> latest = new LinkedHashMap<>();
+
+        ConflatingObserver(@NonNull Function<? super T, K> keySelector) {
+            super(null);
+            this.keySelector = keySelector;
+        }
+
+        @Override
+        void hold(@NonNull T item) {
+            try {
+                K key = keySelector.apply(item);
+                // An update to a key that's already held keeps that key's place
+                latest.put(key, item);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                fail(e);
+            }
+        }
+
+        @Nullable
+        @Override
+        T poll() {
+            if (latest.isEmpty()) {
+                return null;
+            }
+            Iterator<T> iterator = latest.values().iterator();
+            T item = iterator.next();
+            iterator.remove();
+            if (latest.isEmpty()) {
+                clear(); // Release what was only needed while not delivering
+            }
+            return item;
+        }
+
+        /**
+         * Each held item is already the only one for its key, so they're either all kept or all dropped.
+         */
+        @Override
+        int trimHeld(int keep) {
+            int held = latest.size();
+            if (keep > 0 || held == 0) {
+                return 0;
+            }
+            clear();
+            return held;
+        }
+
+        @Override
+        void clear() {
+            latest = new LinkedHashMap<>();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+/**
+ * A buffer that only subscribes to its upstream once it's told to.
+ */
+public interface Connectable {
+
+    /**
+     * Subscribes to the upstream, from then on items are held until an observer subscribes.
+     */
+    void connect();
+}
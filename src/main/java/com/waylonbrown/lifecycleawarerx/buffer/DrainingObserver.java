@@ -0,0 +1,360 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.internal.disposables.EmptyDisposable;
+
+/**
+ * Delivery shared by the buffers: what the upstream emits is held while there's no observer yet or while paused, and
+ * everything reaches the observer through a single drain loop, so it's never called from two threads at once and held
+ * items never arrive after newer ones.
+ *
+ * Once nothing is held, items are passed straight through by the emitting thread, which then keeps draining anything
+ * held or emitted meanwhile, such as items held while it was paused and resumed in between. Items emitted while another
+ * thread is draining are queued for it rather than held, so they're never dropped or conflated.
+ *
+ * Subclasses only decide how items are held. Their {@link #hold}, {@link #poll}, {@link #trimHeld} and {@link #clear}
+ * are always called while holding this observer, which guards what they hold along with everything here.
+ *
+ * @param <T> type of what's emitted and delivered
+ */
+abstract class DrainingObserver<T> implements Observer<T>, Disposable {
+
+    /**
+     * Only set for buffers that report dropped and expired items.
+     */
+    @Nullable private final BufferStrategy bufferStrategy;
+    @NonNull private final AtomicReference<Disposable> upstream = new AtomicReference<>();
+
+    // Everything below is guarded by this observer
+    @Nullable private Observer<? super T> downstream;
+    /**
+     * Emitted while another thread was draining with nothing held, created once that first happens.
+     */
+    @Nullable private ArrayDeque<T> missed;
+    private boolean passThrough;
+    private boolean paused;
+    private boolean draining;
+    private boolean done;
+    private boolean terminated;
+    @Nullable private Throwable error;
+    private long droppedCount;
+    private long expiredCount;
+    private long reportedDroppedCount;
+    private long reportedExpiredCount;
+
+    DrainingObserver(@Nullable BufferStrategy bufferStrategy) {
+        this.bufferStrategy = bufferStrategy;
+    }
+
+    /**
+     * Holds an emitted item until it can be delivered, calling {@link #dropped}, {@link #expired} or {@link #fail} as
+     * needed.
+     */
+    abstract void hold(@NonNull T item);
+
+    /**
+     * @return the oldest held item, which is then no longer held, or null if nothing is.
+     * @throws Exception if a held item can't be read back, which ends the stream with it.
+     */
+    @Nullable
+    abstract T poll() throws Exception;
+
+    /**
+     * Drops held items until at most {@code keep} are left, see {@link Trimmable#trim(int)}.
+     *
+     * @return how many were dropped.
+     */
+    abstract int trimHeld(int keep);
+
+    /**
+     * Drops every held item.
+     */
+    abstract void clear();
+
+    /**
+     * Called right before held items are delivered.
+     */
+    void beforeDrain() {
+    }
+
+    /**
+     * Called once every held item is delivered, to release what was only needed while holding them.
+     */
+    void afterDrain() {
+    }
+
+    @Override
+    public final void onSubscribe(Disposable d) {
+        DisposableHelper.setOnce(upstream, d);
+    }
+
+    @Override
+    public void onNext(T item) {
+        Observer<? super T> observer = null;
+        boolean failed;
+        long dropped;
+        long expired;
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            if (!passThrough) {
+                hold(item);
+            } else if (draining) {
+                if (missed == null) {
+                    missed = new ArrayDeque<>();
+                }
+                missed.offer(item);
+            } else {
+                // Nothing is held or queued while passing through, so this thread can deliver it right away
+                draining = true;
+                observer = downstream;
+            }
+            failed = done;
+            dropped = takeDropped();
+            expired = takeExpired();
+        }
+        report(dropped, expired);
+        if (observer != null) {
+            observer.onNext(item);
+            drainLoop();
+        } else if (failed) {
+            drain();
+        }
+    }
+
+    @Override
+    public final void onError(Throwable e) {
+        terminate(e);
+    }
+
+    @Override
+    public final void onComplete() {
+        terminate(null);
+    }
+
+    @Override
+    public void dispose() {
+        DisposableHelper.dispose(upstream);
+        synchronized (this) {
+            done = true;
+            terminated = true;
+            missed = null;
+            clear();
+        }
+    }
+
+    @Override
+    public final boolean isDisposed() {
+        return DisposableHelper.isDisposed(upstream.get());
+    }
+
+    final void setPaused(boolean paused) {
+        synchronized (this) {
+            this.paused = paused;
+            if (paused) {
+                passThrough = false;
+            }
+        }
+        if (!paused) {
+            drain();
+        }
+    }
+
+    final int trim(int keep) {
+        int trimmed;
+        long dropped;
+        long expired;
+        synchronized (this) {
+            trimmed = trimHeld(keep);
+            dropped = takeDropped();
+            expired = takeExpired();
+        }
+        report(dropped, expired);
+        return trimmed;
+    }
+
+    final void attach(@NonNull Observer<? super T> observer) {
+        synchronized (this) {
+            if (downstream != null) {
+                EmptyDisposable.error(new IllegalStateException("Only a single observer can be bound"), observer);
+                return;
+            }
+            downstream = observer;
+        }
+        observer.onSubscribe(this);
+        drain();
+    }
+
+    /**
+     * Must be called while holding this observer. Ends the stream with the error once what's held is delivered, and
+     * disposes the upstream.
+     */
+    final void fail(@NonNull Throwable e) {
+        done = true;
+        error = e;
+        DisposableHelper.dispose(upstream);
+    }
+
+    /**
+     * Must be called while holding this observer.
+     *
+     * @return whether the upstream has terminated or the stream has failed, after which nothing more is held.
+     */
+    final boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Must be called while holding this observer.
+     */
+    final void dropped(int count) {
+        droppedCount += count;
+    }
+
+    /**
+     * Must be called while holding this observer.
+     */
+    final void expired(int count) {
+        expiredCount += count;
+    }
+
+    /**
+     * @return the time to stamp held items with, or 0 if they don't expire.
+     */
+    final long now() {
+        return bufferStrategy != null && bufferStrategy.getMaxAgeNanos() > 0L
+            ? bufferStrategy.getTicker().nanoTime()
+            : 0L;
+    }
+
+    /**
+     * Must be called while holding this observer.
+     *
+     * @return the updated dropped count, or 0 if nothing was dropped since it was last reported.
+     */
+    private long takeDropped() {
+        if (droppedCount == reportedDroppedCount) {
+            return 0L;
+        }
+        reportedDroppedCount = droppedCount;
+        return droppedCount;
+    }
+
+    /**
+     * Must be called while holding this observer.
+     *
+     * @return the updated expired count, or 0 if nothing expired since it was last reported.
+     */
+    private long takeExpired() {
+        if (expiredCount == reportedExpiredCount) {
+            return 0L;
+        }
+        reportedExpiredCount = expiredCount;
+        return expiredCount;
+    }
+
+    private void report(long dropped, long expired) {
+        if (bufferStrategy == null) {
+            return;
+        }
+        if (expired > 0L && bufferStrategy.getExpiryListener() != null) {
+            bufferStrategy.getExpiryListener().onExpired(expired);
+        }
+        if (dropped > 0L && bufferStrategy.getDropListener() != null) {
+            bufferStrategy.getDropListener().onDropped(dropped);
+        }
+    }
+
+    private void terminate(@Nullable Throwable e) {
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            done = true;
+            error = e;
+        }
+        drain();
+    }
+
+    private void drain() {
+        long expired;
+        synchronized (this) {
+            if (draining) {
+                return;
+            }
+            draining = true;
+            // Checked once per drain rather than once per item delivered
+            beforeDrain();
+            expired = takeExpired();
+        }
+        report(0L, expired);
+        drainLoop();
+    }
+
+    /**
+     * Emits queued and then held items to the observer if there is one, switching to pass-through once none are left.
+     * Must only be called by the thread that set {@link #draining}, anything held meanwhile is picked up by it.
+     */
+    private void drainLoop() {
+        for (;;) {
+            Observer<? super T> observer;
+            T item = null;
+            Throwable terminalError = null;
+            long expired;
+            synchronized (this) {
+                observer = downstream;
+                if (observer == null || terminated || paused) {
+                    draining = false;
+                    return;
+                }
+                if (missed != null) {
+                    item = missed.poll();
+                }
+                if (item == null) {
+                    try {
+                        item = poll();
+                    } catch (Throwable e) {
+                        Exceptions.throwIfFatal(e);
+                        // What's held after it can't be delivered in-order anymore
+                        DisposableHelper.dispose(upstream);
+                        done = true;
+                        error = e;
+                        clear();
+                    }
+                }
+                if (item == null) {
+                    passThrough = true;
+                    afterDrain();
+                    if (!done) {
+                        draining = false;
+                        return;
+                    }
+                    terminated = true;
+                    terminalError = error;
+                    error = null;
+                }
+                expired = takeExpired();
+            }
+            report(0L, expired);
+            if (item != null) {
+                observer.onNext(item);
+            } else if (terminalError != null) {
+                observer.onError(terminalError);
+                return;
+            } else {
+                observer.onComplete();
+                return;
+            }
+        }
+    }
+}
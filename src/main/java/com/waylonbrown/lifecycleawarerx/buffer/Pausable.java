@@ -0,0 +1,12 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+/**
+ * A buffer whose delivery to its observer can be paused, holding items until it's unpaused.
+ */
+public interface Pausable {
+
+    /**
+     * @param paused whether items should be held rather than delivered to the observer, even once it has subscribed.
+     */
+    void setPaused(boolean paused);
+}
@@ -0,0 +1,167 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Fixed-size FIFO queue backed by a single array that is allocated once, so offering and polling items never 
+ * allocates. It only grows when {@link #grow()} is explicitly called, and can go back to its initial size with 
+ * {@link #shrink()} once emptied. Not thread-safe, callers are expected to guard it.
+ * 
+ * A timed buffer also keeps the time each item was offered at in a parallel array, so items older than a given age can
+ * be evicted without wrapping them.
+ * 
+ * @param <T> item type
+ */
+public final class RingBuffer<T> {
+
+    private final int initialCapacity;
+    @NonNull private Object[] items;
+    /**
+     * Only set for timed buffers, indexed the same as the items.
+     */
+    @Nullable private long[] stamps;
+    private int head;
+    private int size;
+
+    public RingBuffer(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * @param timed whether to keep the time each item is offered at, see {@link #offer(Object, long)}.
+     */
+    public RingBuffer(int capacity, boolean timed) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive but was " + capacity);
+        }
+        this.initialCapacity = capacity;
+        this.items = new Object[capacity];
+        this.stamps = timed ? new long[capacity] : null;
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == items.length;
+    }
+
+    /**
+     * @return false without adding the item if the buffer is full.
+     */
+    public boolean offer(@NonNull T item) {
+        if (isFull()) {
+            return false;
+        }
+        items[(head + size) % items.length] = item;
+        size++;
+        return true;
+    }
+
+    /**
+     * @param stamp the time the item is offered at, in nanoseconds. Ignored unless the buffer is timed.
+     * @return false without adding the item if the buffer is full.
+     */
+    public boolean offer(@NonNull T item, long stamp) {
+        if (isFull()) {
+            return false;
+        }
+        int index = (head + size) % items.length;
+        items[index] = item;
+        if (stamps != null) {
+            stamps[index] = stamp;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Drops items offered more than {@code maxAgeNanos} before {@code now}, oldest first. Does nothing unless the buffer
+     * is timed.
+     *
+     * @return how many items were dropped.
+     */
+    public int evictOlderThan(long now, long maxAgeNanos) {
+        if (stamps == null) {
+            return 0;
+        }
+        int evicted = 0;
+        while (size > 0 && now - stamps[head] > maxAgeNanos) {
+            poll();
+            evicted++;
+        }
+        return evicted;
+    }
+
+    /**
+     * @return the oldest item, or null if the buffer is empty.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        if (size == 0) {
+            return null;
+        }
+        T item = (T) items[head];
+        items[head] = null; // Don't hold on to items that were already handed out
+        head = (head + 1) % items.length;
+        size--;
+        return item;
+    }
+
+    /**
+     * Doubles the capacity, keeping the held items in order.
+     */
+    public void grow() {
+        Object[] grown = new Object[items.length * 2];
+        long[] grownStamps = stamps != null ? new long[grown.length] : null;
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % items.length;
+            grown[i] = items[index];
+            if (grownStamps != null) {
+                grownStamps[i] = stamps[index];
+            }
+        }
+        items = grown;
+        stamps = grownStamps;
+        head = 0;
+    }
+
+    /**
+     * Drops a grown array in favor of one of the initial capacity, keeping the held items in order. Does nothing unless
+     * they fit in it.
+     */
+    public void shrink() {
+        if (size > initialCapacity || items.length == initialCapacity) {
+            return;
+        }
+        Object[] shrunk = new Object[initialCapacity];
+        long[] shrunkStamps = stamps != null ? new long[initialCapacity] : null;
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % items.length;
+            shrunk[i] = items[index];
+            if (shrunkStamps != null) {
+                shrunkStamps[i] = stamps[index];
+            }
+        }
+        items = shrunk;
+        stamps = shrunkStamps;
+        head = 0;
+    }
+
+    public void clear() {
+        while (poll() != null) {
+            // Nulling out every slot so the items can be collected
+        }
+    }
+}
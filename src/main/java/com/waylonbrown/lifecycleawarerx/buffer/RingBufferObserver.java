@@ -0,0 +1,94 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+import android.support.annotation.NonNull;
+
+import io.reactivex.exceptions.MissingBackpressureException;
+
+/**
+ * {@link DrainingObserver} that holds items in a {@link RingBuffer} according to a {@link BufferStrategy}, handling
+ * overflow, eviction of items older than its maximum age and trimming the same way for every buffer that holds items
+ * one by one.
+ *
+ * If the strategy has a maximum age, held items older than that are evicted whenever another item is held and right
+ * before held items are delivered, so stale items are never delivered.
+ *
+ * @param <T> type of what's emitted and delivered
+ * @param <E> type of the items held
+ */
+abstract class RingBufferObserver<T, E> extends DrainingObserver<T> {
+
+    @NonNull private final BufferStrategy bufferStrategy;
+    // Guarded by this observer
+    @NonNull final RingBuffer<E> buffer;
+
+    RingBufferObserver(@NonNull BufferStrategy bufferStrategy) {
+        super(bufferStrategy);
+        this.bufferStrategy = bufferStrategy;
+        this.buffer = new RingBuffer<>(bufferStrategy.getCapacity(), bufferStrategy.getMaxAgeNanos() > 0L);
+    }
+
+    /**
+     * Must be called while holding this observer.
+     *
+     * @return false if the item was dropped, or the stream failed, because the buffer is full.
+     */
+    final boolean offer(@NonNull E item, long now) {
+        if (buffer.offer(item, now)) {
+            return true;
+        }
+        switch (bufferStrategy.getOverflowMode()) {
+            case GROW:
+                buffer.grow();
+                buffer.offer(item, now);
+                return true;
+            case DROP_OLDEST:
+                buffer.poll();
+                buffer.offer(item, now);
+                dropped(1);
+                return true;
+            case ERROR:
+                fail(new MissingBackpressureException("Buffer of " + buffer.capacity()
+                    + " items is full while the LifecycleOwner is inactive"));
+                dropped(1);
+                return false;
+            case DROP_NEWEST:
+            default:
+                dropped(1);
+                return false;
+        }
+    }
+
+    /**
+     * Must be called while holding this observer.
+     */
+    final void evictExpired(long now) {
+        expired(buffer.evictOlderThan(now, bufferStrategy.getMaxAgeNanos()));
+    }
+
+    @Override
+    void beforeDrain() {
+        evictExpired(now());
+    }
+
+    @Override
+    void afterDrain() {
+        buffer.shrink(); // Release what was only needed while the observer wasn't subscribed
+    }
+
+    @Override
+    int trimHeld(int keep) {
+        int held = buffer.size();
+        evictExpired(now());
+        while (buffer.size() > keep) {
+            buffer.poll();
+            dropped(1);
+        }
+        buffer.shrink();
+        return held - buffer.size();
+    }
+
+    @Override
+    void clear() {
+        buffer.clear();
+    }
+}
@@ -0,0 +1,20 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Turns items into bytes and back, so that {@link BufferStrategy#spillToDisk} can hold them in a file rather than on
+ * the heap. Items are serialized on the thread they're emitted on and deserialized on the thread they're delivered on.
+ *
+ * @param <T> item type
+ */
+public interface Serializer<T> {
+
+    @NonNull
+    byte[] serialize(@NonNull T item) throws IOException;
+
+    @NonNull
+    T deserialize(@NonNull byte[] bytes) throws IOException;
+}
@@ -0,0 +1,203 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Append-only FIFO queue of byte records in a file, each along with the time it was appended at. Records are written
+ * and read with positional {@link FileChannel} calls rather than through mapped regions, so what's appended is handed
+ * to the OS page cache rather than held on the heap, and nothing stays mapped once the file is deleted. Records are
+ * only ever read once, in the order they were appended. Once at least half the file has been read, the unread records
+ * are moved to its start and the file is truncated, so a file that's read from while it's appended to doesn't keep
+ * growing. Not thread-safe, callers are expected to guard it.
+ */
+final class SpillFile {
+
+    private static final String PREFIX = "lifecycleawarerx-spill";
+    /**
+     * Length of the record as an int, then the time it was appended at as a long.
+     */
+    private static final int HEADER_BYTES = 12;
+    /**
+     * Records already read are only given back once they take up at least this much, so small files aren't compacted
+     * after every read. Also how much is copied at a time when they are.
+     */
+    private static final int MIN_COMPACT_BYTES = 256 * 1024;
+
+    @NonNull private final File file;
+    @NonNull private final RandomAccessFile randomAccessFile;
+    @NonNull private final FileChannel channel;
+    /**
+     * Reused for every header written.
+     */
+    @NonNull private final ByteBuffer writeHeader = ByteBuffer.allocate(HEADER_BYTES);
+    /**
+     * Reused for every header read, holding the one last read.
+     */
+    @NonNull private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    private long writePosition;
+    private long readPosition;
+    /**
+     * Where the header in {@link #header} was read from, or -1 if it's not the next record's.
+     */
+    private long headerPosition = -1L;
+    private int size;
+
+    private SpillFile(@NonNull File file) throws IOException {
+        this.file = file;
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        this.channel = randomAccessFile.getChannel();
+    }
+
+    /**
+     * Creates a new file in the directory, named so that it never collides with that of another stream.
+     */
+    @NonNull
+    static SpillFile create(@NonNull File directory) throws IOException {
+        File file = File.createTempFile(PREFIX, null, directory);
+        try {
+            return new SpillFile(file);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void append(@NonNull byte[] record, long stamp) throws IOException {
+        writeHeader.clear();
+        writeHeader.putInt(record.length).putLong(stamp).flip();
+        writeFully(writeHeader, writePosition);
+        writeFully(ByteBuffer.wrap(record), writePosition + HEADER_BYTES);
+        writePosition += HEADER_BYTES + record.length;
+        size++;
+    }
+
+    /**
+     * Must only be called while not empty.
+     *
+     * @return the time the next record was appended at.
+     */
+    long peekStamp() throws IOException {
+        return readHeader().getLong(4);
+    }
+
+    /**
+     * Must only be called while not empty.
+     *
+     * @return the next record, which is then removed.
+     */
+    @NonNull
+    byte[] poll() throws IOException {
+        byte[] record = new byte[readHeader().getInt(0)];
+        ByteBuffer body = ByteBuffer.wrap(record);
+        long position = readPosition + HEADER_BYTES;
+        while (body.hasRemaining()) {
+            int read = channel.read(body, position);
+            if (read < 0) {
+                throw new IOException("Spill file ended before the record did");
+            }
+            position += read;
+        }
+        removed(HEADER_BYTES + record.length);
+        return record;
+    }
+
+    /**
+     * Must only be called while not empty. Removes the next record without reading it into the heap.
+     */
+    void skip() throws IOException {
+        removed(HEADER_BYTES + readHeader().getInt(0));
+    }
+
+    /**
+     * Deletes the file along with every record still in it.
+     */
+    void delete() {
+        size = 0;
+        try {
+            channel.close();
+            randomAccessFile.close();
+        } catch (IOException ignored) {
+            // Nothing's left to read from it, and it's deleted either way
+        }
+        file.delete();
+    }
+
+    /**
+     * @return the header of the next record, read from the file unless it already was.
+     */
+    @NonNull
+    private ByteBuffer readHeader() throws IOException {
+        if (headerPosition != readPosition) {
+            header.clear();
+            long position = readPosition;
+            while (header.hasRemaining()) {
+                int read = channel.read(header, position);
+                if (read < 0) {
+                    throw new IOException("Spill file ended before the record header did");
+                }
+                position += read;
+            }
+            headerPosition = readPosition;
+        }
+        return header;
+    }
+
+    private void removed(int length) throws IOException {
+        readPosition += length;
+        headerPosition = -1L;
+        size--;
+        if (size == 0) {
+            // Caught up with what was written, so the whole file can be given back
+            channel.truncate(0L);
+            readPosition = 0L;
+            writePosition = 0L;
+        } else if (readPosition >= MIN_COMPACT_BYTES && readPosition >= writePosition - readPosition) {
+            compact();
+        }
+    }
+
+    /**
+     * Moves the unread records to the start of the file and truncates it to them. They take up no more than what's
+     * already been read, so they never overlap where they're moved to.
+     */
+    private void compact() throws IOException {
+        long unread = writePosition - readPosition;
+        ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(MIN_COMPACT_BYTES, unread));
+        long moved = 0L;
+        while (moved < unread) {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), unread - moved));
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk, readPosition + moved + chunk.position()) < 0) {
+                    throw new IOException("Spill file ended before its last record did");
+                }
+            }
+            chunk.flip();
+            writeFully(chunk, moved);
+            moved += chunk.limit();
+        }
+        channel.truncate(unread);
+        readPosition = 0L;
+        writePosition = unread;
+    }
+
+    private void writeFully(@NonNull ByteBuffer source, long position) throws IOException {
+        while (source.hasRemaining()) {
+            position += channel.write(source, position);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+import io.reactivex.exceptions.Exceptions;
+
+/**
+ * Like {@link BufferingObservable}, but only holds as many items on the heap as the {@link BufferStrategy} allows and
+ * appends every item after that to a {@link SpillFile} in its spill directory, rather than dropping them. Held items
+ * are emitted in-order once the observer subscribes, those on the heap first and then those in the file, read back and
+ * deserialized one at a time, through the same drain loop as the other buffers, see {@link DrainingObserver}. The file
+ * is deleted as soon as the last item in it is read, or once the stream is disposed or {@link #release()}d.
+ *
+ * If an item can't be serialized, or the file can't be written or read, the upstream is disposed and the stream ends
+ * with that error, after the items held on the heap. Items in the file only expire as they're read back.
+ *
+ * @param <T> stream inner type
+ */
+public final class SpillingObservable<T> extends Observable<T> implements Pausable, Connectable, Trimmable {
+
+    @NonNull private final ObservableSource<T> source;
+    @NonNull private final SpillingObserver<T> spillingObserver;
+
+    /**
+     * @param bufferStrategy one with a spill directory, see {@link BufferStrategy#spillToDisk}.
+     * @param serializer what held items are written to and read from the file with.
+     */
+    public SpillingObservable(@NonNull ObservableSource<T> source, @NonNull BufferStrategy bufferStrategy,
+                              @NonNull Serializer<T> serializer) {
+        if (bufferStrategy.getSpillDirectory() == null) {
+            throw new IllegalArgumentException("BufferStrategy has no spill directory");
+        }
+        this.source = source;
+        this.spillingObserver = new SpillingObserver<>(bufferStrategy, serializer);
+    }
+
+    /**
+     * Subscribes to the upstream, from then on items are held until an observer subscribes.
+     */
+    @Override
+    public void connect() {
+        source.subscribe(spillingObserver);
+    }
+
+    @Override
+    public void setPaused(boolean paused) {
+        spillingObserver.setPaused(paused);
+    }
+
+    @Override
+    public int trim(int keep) {
+        return spillingObserver.trim(keep);
+    }
+
+    /**
+     * Drops every held item and deletes the file, for once nothing held can be delivered anymore. Items emitted after
+     * this aren't held, though the stream still terminates as the upstream does.
+     */
+    public void release() {
+        spillingObserver.release();
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super T> observer) {
+        spillingObserver.attach(observer);
+    }
+
+    static final class SpillingObserver<T> extends RingBufferObserver<T, T> {
+
+        @NonNull private final BufferStrategy bufferStrategy;
+        @NonNull private final Serializer<T> serializer;
+        @NonNull private final File spillDirectory;
+
+        // Guarded by this observer
+        /**
+         * Only set while items are spilled. Never has items while the buffer has room, so every item in it is newer
+         * than those in the buffer.
+         */
+        @Nullable private SpillFile spillFile;
+        private boolean released;
+
+        SpillingObserver(@NonNull BufferStrategy bufferStrategy, @NonNull Serializer<T> serializer) {
+            super(bufferStrategy);
+            this.bufferStrategy = bufferStrategy;
+            this.serializer = serializer;
+            this.spillDirectory = bufferStrategy.getSpillDirectory();
+        }
+
+        @Override
+        void hold(@NonNull T item) {
+            if (released) {
+                return;
+            }
+            long now = now();
+            evictExpired(now);
+            if ((spillFile == null || spillFile.isEmpty()) && buffer.offer(item, now)) {
+                return;
+            }
+            try {
+                // Written while holding this observer, so it can't be read before it's all there
+                byte[] record = serializer.serialize(item);
+                if (spillFile == null) {
+                    spillFile = SpillFile.create(spillDirectory);
+                }
+                spillFile.append(record, now);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                fail(e);
+            }
+        }
+
+        /**
+         * Items on the heap are polled first, then those in the file, skipping those that have expired and deleting
+         * the file once the last of them is read. Spilled items are deserialized here too, so a slow serializer holds
+         * up the upstream's thread while it's emitting.
+         */
+        @Nullable
+        @Override
+        T poll() throws IOException {
+            T item = buffer.poll();
+            if (item != null || spillFile == null) {
+                return item;
+            }
+            long maxAgeNanos = bufferStrategy.getMaxAgeNanos();
+            if (maxAgeNanos > 0L) {
+                long now = now();
+                while (!spillFile.isEmpty() && now - spillFile.peekStamp() > maxAgeNanos) {
+                    spillFile.skip();
+                    expired(1);
+                }
+            }
+            byte[] record = spillFile.isEmpty() ? null : spillFile.poll();
+            if (spillFile.isEmpty()) {
+                deleteSpillFile();
+            }
+            return record != null ? serializer.deserialize(record) : null;
+        }
+
+        /**
+         * The buffer has the oldest items, so it's dropped from first, only keeping as many as the file leaves room for.
+         */
+        @Override
+        int trimHeld(int keep) {
+            int trimmed = super.trimHeld(Math.max(0, keep - (spillFile != null ? spillFile.size() : 0)));
+            if (spillFile == null || spillFile.size() <= keep) {
+                return trimmed;
+            }
+            int spilled = spillFile.size();
+            try {
+                while (spillFile.size() > keep) {
+                    spillFile.skip();
+                }
+            } catch (IOException e) {
+                // What's left of it can't be read back either
+                deleteSpillFile();
+            }
+            int dropped = spilled - (spillFile != null ? spillFile.size() : 0);
+            dropped(dropped);
+            if (spillFile != null && spillFile.isEmpty()) {
+                deleteSpillFile();
+            }
+            return trimmed + dropped;
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            deleteSpillFile();
+        }
+
+        void release() {
+            synchronized (this) {
+                released = true;
+                clear();
+                buffer.shrink();
+            }
+        }
+
+        /**
+         * Must be called while holding this observer.
+         */
+        private void deleteSpillFile() {
+            if (spillFile != null) {
+                spillFile.delete();
+                spillFile = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.waylonbrown.lifecycleawarerx.buffer;
+
+/**
+ * A buffer whose held items can be dropped before they're delivered, to give memory back when the system runs low.
+ */
+public interface Trimmable {
+
+    /**
+     * Drops held items older than the buffer's maximum age, then the oldest of the rest until at most {@code keep} are 
+     * left. Items already delivered aren't affected.
+     *
+     * @param keep how many of the newest held items to keep, 0 to drop every one of them.
+     * @return how many items were dropped.
+     */
+    int trim(int keep);
+}
@@ -0,0 +1,59 @@
+package com.waylonbrown.lifecycleawarerx.delivery;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+
+/**
+ * {@link FrameClock} backed by the main thread's {@link Choreographer}, so items are delivered right before the next 
+ * frame is drawn. Falls back to posting to the main thread below Jelly Bean, where there's no Choreographer.
+ */
+public final class ChoreographerFrameClock implements FrameClock {
+
+    private static final ChoreographerFrameClock MAIN_THREAD = new ChoreographerFrameClock();
+
+    @NonNull private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ChoreographerFrameClock() {
+    }
+
+    @NonNull
+    public static FrameClock mainThread() {
+        return MAIN_THREAD;
+    }
+
+    @Override
+    public boolean isFrameThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    @Override
+    public void postFrameCallback(@NonNull final Runnable callback) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            mainHandler.post(callback);
+        } else if (isFrameThread()) {
+            postToChoreographer(callback);
+        } else {
+            // The Choreographer can only be used from the thread it belongs to
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    postToChoreographer(callback);
+                }
+            });
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static void postToChoreographer(@NonNull final Runnable callback) {
+        Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                callback.run();
+            }
+        });
+    }
+}
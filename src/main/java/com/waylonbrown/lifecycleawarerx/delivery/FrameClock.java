@@ -0,0 +1,20 @@
+package com.waylonbrown.lifecycleawarerx.delivery;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Source of frames that bound observers are delivered on, which is the main thread's Choreographer on a device, see 
+ * {@link ChoreographerFrameClock}. Can be implemented with a fake clock to drive delivery from tests on the JVM.
+ */
+public interface FrameClock {
+
+    /**
+     * @return whether the calling thread is the one frame callbacks are run on.
+     */
+    boolean isFrameThread();
+
+    /**
+     * Runs the callback on the frame thread once the next frame starts. Can be called from any thread.
+     */
+    void postFrameCallback(@NonNull Runnable callback);
+}
@@ -0,0 +1,192 @@
+package com.waylonbrown.lifecycleawarerx.delivery;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.waylonbrown.lifecycleawarerx.buffer.RingBuffer;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.disposables.DisposableHelper;
+
+/**
+ * Delivers items to its observer on the {@link FrameClock}'s thread, like observeOn() would, but without posting once 
+ * per item. Items emitted on the frame thread while nothing is waiting are delivered right away, and everything 
+ * emitted from other threads within one frame is queued up and delivered in a single frame callback.
+ *
+ * @param <T> stream inner type
+ */
+public final class FrameCoalescingObservable<T> extends Observable<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    @NonNull private final ObservableSource<T> source;
+    @NonNull private final FrameClock frameClock;
+
+    public FrameCoalescingObservable(@NonNull ObservableSource<T> source, @NonNull FrameClock frameClock) {
+        this.source = source;
+        this.frameClock = frameClock;
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super T> observer) {
+        source.subscribe(new FrameCoalescingObserver<>(observer, frameClock));
+    }
+
+    static final class FrameCoalescingObserver<T> implements Observer<T>, Disposable, Runnable {
+
+        @NonNull private final Observer<? super T> downstream;
+        @NonNull private final FrameClock frameClock;
+        @NonNull private final AtomicReference<Disposable> upstream = new AtomicReference<>();
+
+        // Everything below is guarded by the queue
+        @NonNull private final RingBuffer<T> queue = new RingBuffer<>(INITIAL_CAPACITY);
+        /** Whether a frame callback has been posted that hasn't finished delivering the queue yet. */
+        private boolean scheduled;
+        private boolean done;
+        private boolean terminated;
+        @Nullable private Throwable error;
+
+        FrameCoalescingObserver(@NonNull Observer<? super T> downstream, @NonNull FrameClock frameClock) {
+            this.downstream = downstream;
+            this.frameClock = frameClock;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.setOnce(upstream, d)) {
+                downstream.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(T item) {
+            boolean deliverNow;
+            boolean post = false;
+            synchronized (queue) {
+                if (done || terminated) {
+                    return;
+                }
+                // Nothing queued means nothing this item has to wait behind to stay in order
+                deliverNow = queue.isEmpty() && !scheduled && frameClock.isFrameThread();
+                if (!deliverNow) {
+                    if (!queue.offer(item)) {
+                        queue.grow();
+                        queue.offer(item);
+                    }
+                    post = schedule();
+                }
+            }
+            if (deliverNow) {
+                downstream.onNext(item);
+            } else if (post) {
+                frameClock.postFrameCallback(this);
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            terminate(e);
+        }
+
+        @Override
+        public void onComplete() {
+            terminate(null);
+        }
+
+        @Override
+        public void dispose() {
+            DisposableHelper.dispose(upstream);
+            synchronized (queue) {
+                terminated = true;
+                queue.clear();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return DisposableHelper.isDisposed(upstream.get());
+        }
+
+        /**
+         * The frame callback, delivers everything queued up including whatever is queued while delivering.
+         */
+        @Override
+        public void run() {
+            for (;;) {
+                T item;
+                Throwable terminalError = null;
+                synchronized (queue) {
+                    if (terminated) {
+                        return;
+                    }
+                    item = queue.poll();
+                    if (item == null) {
+                        scheduled = false;
+                        queue.shrink();
+                        if (!done) {
+                            return;
+                        }
+                        terminated = true;
+                        terminalError = error;
+                        error = null;
+                    }
+                }
+                if (item != null) {
+                    downstream.onNext(item);
+                } else {
+                    deliverTerminal(terminalError);
+                    return;
+                }
+            }
+        }
+
+        private void terminate(@Nullable Throwable e) {
+            boolean deliverNow;
+            boolean post = false;
+            synchronized (queue) {
+                if (done || terminated) {
+                    return;
+                }
+                done = true;
+                deliverNow = queue.isEmpty() && !scheduled && frameClock.isFrameThread();
+                if (deliverNow) {
+                    terminated = true;
+                } else {
+                    error = e;
+                    post = schedule();
+                }
+            }
+            if (deliverNow) {
+                deliverTerminal(e);
+            } else if (post) {
+                frameClock.postFrameCallback(this);
+            }
+        }
+
+        /**
+         * Must be called while holding the queue.
+         *
+         * @return whether a frame callback needs to be posted, which is only once per frame.
+         */
+        private boolean schedule() {
+            if (scheduled) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+
+        private void deliverTerminal(@Nullable Throwable terminalError) {
+            if (terminalError != null) {
+                downstream.onError(terminalError);
+            } else {
+                downstream.onComplete();
+            }
+        }
+    }
+}
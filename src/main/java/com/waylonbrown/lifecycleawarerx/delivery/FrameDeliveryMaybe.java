@@ -0,0 +1,110 @@
+package com.waylonbrown.lifecycleawarerx.delivery;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Maybe;
+import io.reactivex.MaybeObserver;
+import io.reactivex.MaybeSource;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.disposables.DisposableHelper;
+
+/**
+ * Delivers the result of a Maybe (or a Single converted to a Maybe) on the {@link FrameClock}'s thread. The result is
+ * delivered right away if it arrives on the frame thread, otherwise in the next frame.
+ *
+ * @param <T> stream inner type
+ */
+public final class FrameDeliveryMaybe<T> extends Maybe<T> {
+
+    @NonNull private final MaybeSource<T> source;
+    @NonNull private final FrameClock frameClock;
+
+    public FrameDeliveryMaybe(@NonNull MaybeSource<T> source, @NonNull FrameClock frameClock) {
+        this.source = source;
+        this.frameClock = frameClock;
+    }
+
+    @Override
+    protected void subscribeActual(MaybeObserver<? super T> observer) {
+        source.subscribe(new FrameDeliveryObserver<>(observer, frameClock));
+    }
+
+    static final class FrameDeliveryObserver<T> implements MaybeObserver<T>, Disposable, Runnable {
+
+        @NonNull private final MaybeObserver<? super T> downstream;
+        @NonNull private final FrameClock frameClock;
+        @NonNull private final AtomicReference<Disposable> upstream = new AtomicReference<>();
+
+        // Set before the frame callback is posted, which publishes them to the frame thread
+        @Nullable private T value;
+        @Nullable private Throwable error;
+
+        FrameDeliveryObserver(@NonNull MaybeObserver<? super T> downstream, @NonNull FrameClock frameClock) {
+            this.downstream = downstream;
+            this.frameClock = frameClock;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.setOnce(upstream, d)) {
+                downstream.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onSuccess(T value) {
+            this.value = value;
+            deliverOnFrame();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            this.error = e;
+            deliverOnFrame();
+        }
+
+        @Override
+        public void onComplete() {
+            deliverOnFrame();
+        }
+
+        @Override
+        public void dispose() {
+            DisposableHelper.dispose(upstream);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return DisposableHelper.isDisposed(upstream.get());
+        }
+
+        @Override
+        public void run() {
+            if (isDisposed()) {
+                return;
+            }
+            T heldValue = value;
+            Throwable heldError = error;
+            value = null;
+            error = null;
+            if (heldValue != null) {
+                downstream.onSuccess(heldValue);
+            } else if (heldError != null) {
+                downstream.onError(heldError);
+            } else {
+                downstream.onComplete();
+            }
+        }
+
+        private void deliverOnFrame() {
+            if (frameClock.isFrameThread()) {
+                run();
+            } else {
+                frameClock.postFrameCallback(this);
+            }
+        }
+    }
+}
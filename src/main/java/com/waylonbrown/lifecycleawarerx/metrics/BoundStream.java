@@ -0,0 +1,47 @@
+package com.waylonbrown.lifecycleawarerx.metrics;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Identifies a bound stream to {@link LifecycleRxMetrics}. Only holds the name of its LifecycleOwner's class rather 
+ * than the LifecycleOwner itself, so listeners can keep these around without leaking Activities or Fragments.
+ */
+public final class BoundStream {
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final long id;
+    @NonNull private final String ownerName;
+
+    private BoundStream(long id, @NonNull String ownerName) {
+        this.id = id;
+        this.ownerName = ownerName;
+    }
+
+    /**
+     * @param ownerName usually the class name of the LifecycleOwner the stream is bound to.
+     */
+    @NonNull
+    public static BoundStream create(@NonNull String ownerName) {
+        return new BoundStream(NEXT_ID.incrementAndGet(), ownerName);
+    }
+
+    /**
+     * @return an id unique to this stream within the process.
+     */
+    public long getId() {
+        return id;
+    }
+
+    @NonNull
+    public String getOwnerName() {
+        return ownerName;
+    }
+
+    @Override
+    public String toString() {
+        return ownerName + "#" + id;
+    }
+}
@@ -0,0 +1,40 @@
+package com.waylonbrown.lifecycleawarerx.metrics;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Listener told about what happens to the items of bound streams, set for every bind with 
+ * {@link com.waylonbrown.lifecycleawarerx.LifecycleBinder#setGlobalMetrics(LifecycleRxMetrics)} or for a single one 
+ * with {@link com.waylonbrown.lifecycleawarerx.BindOptions#withMetrics(LifecycleRxMetrics)}. See 
+ * {@link LifecycleRxStats} for one that counts them up.
+ * 
+ * Streams bound while no listener is set aren't metered at all, so they don't pay for any of this. Callbacks are made 
+ * on whichever thread the item is on at that point, so implementations need to be thread-safe and quick.
+ */
+public interface LifecycleRxMetrics {
+
+    /**
+     * An item was emitted while the stream wasn't delivering, either because its LifecycleOwner hasn't been active 
+     * yet or because the stream is paused, so it's held until it is.
+     */
+    void onBuffered(@NonNull BoundStream stream);
+
+    /**
+     * An item was delivered to the stream's observer.
+     * 
+     * @param latencyNanos between the item being emitted by the upstream and being delivered.
+     */
+    void onDelivered(@NonNull BoundStream stream, long latencyNanos);
+
+    /**
+     * An item reached the observer only after the LifecycleOwner was destroyed, so it was filtered out.
+     */
+    void onDroppedAfterDestroy(@NonNull BoundStream stream);
+
+    /**
+     * The observer was subscribed to the stream, which waits for the LifecycleOwner to be active.
+     * 
+     * @param subscribeDelayNanos between the stream being bound and the observer being subscribed.
+     */
+    void onSubscribed(@NonNull BoundStream stream, long subscribeDelayNanos);
+}
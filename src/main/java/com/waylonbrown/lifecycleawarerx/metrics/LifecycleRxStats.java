@@ -0,0 +1,99 @@
+package com.waylonbrown.lifecycleawarerx.metrics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link LifecycleRxMetrics} that counts what happens to items per stream and per kind of LifecycleOwner, and records 
+ * how long items take from being emitted to being delivered in a {@link LatencyHistogram}.
+ * 
+ * Streams are only weakly held on to, so their counters go away along with the stream.
+ */
+public final class LifecycleRxStats implements LifecycleRxMetrics {
+
+    @NonNull private final ConcurrentMap<String, StreamCounters> ownerCounters = new ConcurrentHashMap<>();
+    @NonNull private final Map<BoundStream, StreamCounters> streamCounters = 
+        Collections.synchronizedMap(new WeakHashMap<BoundStream, StreamCounters>());
+    @NonNull private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+    @Override
+    public void onBuffered(@NonNull BoundStream stream) {
+        countersFor(stream).addBuffered();
+        ownerCountersFor(stream).addBuffered();
+    }
+
+    @Override
+    public void onDelivered(@NonNull BoundStream stream, long latencyNanos) {
+        countersFor(stream).addDelivered();
+        ownerCountersFor(stream).addDelivered();
+        latencyHistogram.record(latencyNanos);
+    }
+
+    @Override
+    public void onDroppedAfterDestroy(@NonNull BoundStream stream) {
+        countersFor(stream).addDroppedAfterDestroy();
+        ownerCountersFor(stream).addDroppedAfterDestroy();
+    }
+
+    @Override
+    public void onSubscribed(@NonNull BoundStream stream, long subscribeDelayNanos) {
+        countersFor(stream).addSubscribed(subscribeDelayNanos);
+        ownerCountersFor(stream).addSubscribed(subscribeDelayNanos);
+    }
+
+    /**
+     * @return the counters of a single stream, or null if nothing has happened to it yet.
+     */
+    @Nullable
+    public StreamCounters getStreamCounters(@NonNull BoundStream stream) {
+        return streamCounters.get(stream);
+    }
+
+    /**
+     * @return the counters of every stream bound to LifecycleOwners with this name, see 
+     *      {@link BoundStream#getOwnerName()}, or null if there haven't been any.
+     */
+    @Nullable
+    public StreamCounters getOwnerCounters(@NonNull String ownerName) {
+        return ownerCounters.get(ownerName);
+    }
+
+    /**
+     * @return emission to delivery latency of every item delivered.
+     */
+    @NonNull
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    @NonNull
+    private StreamCounters countersFor(@NonNull BoundStream stream) {
+        synchronized (streamCounters) {
+            StreamCounters counters = streamCounters.get(stream);
+            if (counters == null) {
+                counters = new StreamCounters();
+                streamCounters.put(stream, counters);
+            }
+            return counters;
+        }
+    }
+
+    @NonNull
+    private StreamCounters ownerCountersFor(@NonNull BoundStream stream) {
+        StreamCounters counters = ownerCounters.get(stream.getOwnerName());
+        if (counters == null) {
+            StreamCounters created = new StreamCounters();
+            counters = ownerCounters.putIfAbsent(stream.getOwnerName(), created);
+            if (counters == null) {
+                counters = created;
+            }
+        }
+        return counters;
+    }
+}
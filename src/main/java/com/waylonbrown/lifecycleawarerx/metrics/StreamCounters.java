@@ -0,0 +1,59 @@
+package com.waylonbrown.lifecycleawarerx.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts kept by {@link LifecycleRxStats} for a single stream, or added up for every stream bound to the same kind of
+ * LifecycleOwner.
+ */
+public final class StreamCounters {
+
+    private final AtomicLong buffered = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong droppedAfterDestroy = new AtomicLong();
+    private final AtomicLong subscribed = new AtomicLong();
+    private final AtomicLong subscribeDelayNanos = new AtomicLong();
+
+    void addBuffered() {
+        buffered.incrementAndGet();
+    }
+
+    void addDelivered() {
+        delivered.incrementAndGet();
+    }
+
+    void addDroppedAfterDestroy() {
+        droppedAfterDestroy.incrementAndGet();
+    }
+
+    void addSubscribed(long delayNanos) {
+        subscribed.incrementAndGet();
+        subscribeDelayNanos.addAndGet(delayNanos);
+    }
+
+    public long getBuffered() {
+        return buffered.get();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getDroppedAfterDestroy() {
+        return droppedAfterDestroy.get();
+    }
+
+    /**
+     * @return how many observers have been subscribed, which is at most one for a single stream.
+     */
+    public long getSubscribed() {
+        return subscribed.get();
+    }
+
+    /**
+     * @return the time between binding and subscribing, added up for every observer subscribed.
+     */
+    public long getSubscribeDelayNanos() {
+        return subscribeDelayNanos.get();
+    }
+}
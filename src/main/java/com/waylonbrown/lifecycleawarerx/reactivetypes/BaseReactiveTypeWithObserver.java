@@ -9,4 +9,9 @@ public interface BaseReactiveTypeWithObserver<R, O> {
     void setReactiveType(R reactiveType);
     
     void subscribeWithObserver();
+
+    /**
+     * @return the observer passed in when binding, which the stream is subscribed with.
+     */
+    O getObserver();
 }
@@ -0,0 +1,39 @@
+package com.waylonbrown.lifecycleawarerx.reactivetypes;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.reactivestreams.Subscriber;
+
+import io.reactivex.Flowable;
+
+/**
+ * Wraps a {@link Flowable} with it's {@link Subscriber}.
+ */
+public class FlowableWithObserver<T> implements BaseReactiveTypeWithObserver<Flowable<T>, Subscriber<T>> {
+
+    @Nullable private Flowable<T> flowable;
+    @NonNull private final Subscriber<T> subscriber;
+
+    public FlowableWithObserver(@NonNull Subscriber<T> subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    @Override
+    public void subscribeWithObserver() {
+        if (flowable != null) {
+            flowable.subscribe(subscriber);
+        }
+    }
+
+    @Override
+    public void setReactiveType(Flowable<T> flowable) {
+        this.flowable = flowable;
+    }
+
+    @NonNull
+    @Override
+    public Subscriber<T> getObserver() {
+        return subscriber;
+    }
+}
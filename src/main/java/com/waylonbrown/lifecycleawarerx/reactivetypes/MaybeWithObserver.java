@@ -29,4 +29,10 @@ public class MaybeWithObserver<T> implements BaseReactiveTypeWithObserver<Maybe<
     public void setReactiveType(Maybe<T> maybe) {
         this.maybe = maybe;
     }
+
+    @NonNull
+    @Override
+    public MaybeObserver<T> getObserver() {
+        return observer;
+    }
 }
@@ -29,4 +29,10 @@ public class ObservableWithObserver<T> implements BaseReactiveTypeWithObserver<O
     public void setReactiveType(Observable<T> observable) {
         this.observable = observable;
     }
+
+    @NonNull
+    @Override
+    public Observer<T> getObserver() {
+        return observer;
+    }
 }
@@ -29,4 +29,10 @@ public class SingleWithObserver<T> implements BaseReactiveTypeWithObserver<Singl
     public void setReactiveType(Single<T> single) {
         this.single = single;
     }
+
+    @NonNull
+    @Override
+    public SingleObserver<T> getObserver() {
+        return observer;
+    }
 }
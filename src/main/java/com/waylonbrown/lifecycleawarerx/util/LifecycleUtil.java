@@ -17,6 +17,14 @@ public final class LifecycleUtil {
      */
     public static boolean isInActiveState(@Nullable LifecycleOwner lifecycleOwner) {
         return lifecycleOwner != null
-            && lifecycleOwner.getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED);
+            && isActive(lifecycleOwner.getLifecycle().getCurrentState());
+    }
+
+    /**
+     * @param state of a {@link LifecycleOwner}.
+     * @return whether that state is considered active, see {@link #isInActiveState(LifecycleOwner)}.
+     */
+    public static boolean isActive(@Nullable Lifecycle.State state) {
+        return state != null && state.isAtLeast(Lifecycle.State.STARTED);
     }
 }
@@ -0,0 +1,22 @@
+package com.waylonbrown.lifecycleawarerx.util;
+
+/**
+ * Source of the current time, so anything timed can be driven from tests on the JVM.
+ */
+public interface Ticker {
+
+    /**
+     * Backed by {@link System#nanoTime()}.
+     */
+    Ticker SYSTEM = new Ticker() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    /**
+     * @return nanoseconds since some fixed but arbitrary point, only meaningful compared to other readings.
+     */
+    long nanoTime();
+}
@@ -2,27 +2,66 @@ package com.waylonbrown.lifecycleawarerx;
 
 import android.arch.lifecycle.Lifecycle;
 import android.arch.lifecycle.LifecycleObserver;
-import android.arch.lifecycle.LifecycleOwner;
-import android.arch.lifecycle.LifecycleRegistry;
+import android.content.ComponentCallbacks2;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.waylonbrown.lifecycleawarerx.buffer.BufferStrategy;
+import com.waylonbrown.lifecycleawarerx.buffer.Pausable;
+import com.waylonbrown.lifecycleawarerx.buffer.Serializer;
+import com.waylonbrown.lifecycleawarerx.delivery.FrameClock;
+import com.waylonbrown.lifecycleawarerx.metrics.LifecycleRxStats;
+import com.waylonbrown.lifecycleawarerx.metrics.StreamCounters;
+import com.waylonbrown.lifecycleawarerx.testing.LifecycleStressRunner;
+import com.waylonbrown.lifecycleawarerx.testing.TestLifecycleOwner;
+import com.waylonbrown.lifecycleawarerx.testing.TestMainThread;
+import com.waylonbrown.lifecycleawarerx.util.Ticker;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
+import io.reactivex.MaybeObserver;
 import io.reactivex.Observable;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Observer;
 import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.LongConsumer;
 import io.reactivex.observers.DisposableMaybeObserver;
 import io.reactivex.observers.DisposableObserver;
 import io.reactivex.observers.DisposableSingleObserver;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subscribers.TestSubscriber;
+import io.reactivex.subjects.PublishSubject;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class LifecycleTest {
 
 	private TestLifecycleOwner lifecycleOwner;
+	private TestMainThread mainThread;
+	private TestScheduler scheduler;
 	private boolean methodOnViewCalled;
 	private boolean onCompleteCalled;
 	private boolean onErrorCalled;
@@ -31,6 +70,9 @@ public class LifecycleTest {
 	@Before
 	public void setup() {
 		this.lifecycleOwner = new TestLifecycleOwner();
+		this.scheduler = new TestScheduler();
+		this.mainThread = new TestMainThread(scheduler);
+		LifecycleBinder.setMainThread(mainThread);
 		this.methodOnViewCalled = false;
 		this.onCompleteCalled = false;
 		this.onErrorCalled = false;
@@ -42,7 +84,7 @@ public class LifecycleTest {
 	 */
 	@Test
 	public void viewsAreCalledAfterDestroyWithoutLifecycleAwareRx() throws Exception {
-		Observable.interval(1, TimeUnit.MILLISECONDS)
+		Observable.interval(1, TimeUnit.MILLISECONDS, scheduler)
 			.subscribeWith(new DisposableObserver<Long>() {
 				@Override
 				public void onNext(final Long value) {
@@ -62,8 +104,7 @@ public class LifecycleTest {
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
 		methodOnViewCalled = false;	// Make sure there's a fresh state just as LifecycleOwner hits destroy
 
-		// Need to wait to give it time to potentially fail
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(true, methodOnViewCalled);
 	}
 
@@ -72,7 +113,7 @@ public class LifecycleTest {
 		// Lifecycle is "active" once it is STARTED, it's not ready yet at INITIALIZED or CREATED.
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
 		
-		Observable.interval(1, TimeUnit.MILLISECONDS)
+		Observable.interval(1, TimeUnit.MILLISECONDS, scheduler)
 			.subscribeWith(new DisposableObserver<Long>() {
 				@Override
 				public void onNext(final Long value) {
@@ -88,8 +129,7 @@ public class LifecycleTest {
 				}
 			});
 
-		// Need to wait to give it time to potentially fail
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(true, methodOnViewCalled);
 	}
 
@@ -99,7 +139,7 @@ public class LifecycleTest {
 	
 	@Test
 	public void viewsAreNotCalledWhenLifecycleDestroyedWithObservable() throws Exception {
-		Observable.interval(1, TimeUnit.MILLISECONDS)
+		Observable.interval(1, TimeUnit.MILLISECONDS, scheduler)
 			.compose(LifecycleBinder.bind(lifecycleOwner, new DisposableObserver<Long>() {
 				@Override
 				public void onNext(final Long value) {
@@ -118,7 +158,7 @@ public class LifecycleTest {
 			}));
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(true, methodOnViewCalled);
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
@@ -126,8 +166,7 @@ public class LifecycleTest {
 		onCompleteCalled = false;
 		onErrorCalled = false;
 
-		// Need to wait to give it time to potentially fail
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(false, methodOnViewCalled);
 		assertEquals(false, onCompleteCalled);
 		assertEquals(false, onErrorCalled);
@@ -149,15 +188,14 @@ public class LifecycleTest {
 			}));
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(true, methodOnViewCalled);
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
 		methodOnViewCalled = false;	// Make sure there's a fresh state just as LifecycleOwner hits destroy
 		onErrorCalled = false;
 
-		// Need to wait to give it time to potentially fail
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(false, methodOnViewCalled);
 		assertEquals(false, onErrorCalled);
 	}
@@ -184,7 +222,7 @@ public class LifecycleTest {
 			}));
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(true, methodOnViewCalled);
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
@@ -192,8 +230,7 @@ public class LifecycleTest {
 		onCompleteCalled = false;
 		onErrorCalled = false;
 
-		// Need to wait to give it time to potentially fail
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(false, methodOnViewCalled);
 		assertEquals(false, onCompleteCalled);
 		assertEquals(false, onErrorCalled);
@@ -205,7 +242,7 @@ public class LifecycleTest {
 
 	@Test
 	public void viewsAreOnlyCalledWhenLifecycleActiveWithObservable() throws Exception {
-		Observable.interval(1, TimeUnit.MILLISECONDS)
+		Observable.interval(1, TimeUnit.MILLISECONDS, scheduler)
 			.take(10)
 			.compose(LifecycleBinder.bind(lifecycleOwner, new DisposableObserver() {
 				@Override
@@ -222,16 +259,15 @@ public class LifecycleTest {
 				}
 			}));
 
-		// Need to wait to give it time to potentially fail
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(0, methodOnViewCalledCounter);
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(0, methodOnViewCalledCounter);
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		// At this point the views should now be called since the lifecycle is active
 		assertEquals(10, methodOnViewCalledCounter);
 	}
@@ -250,16 +286,15 @@ public class LifecycleTest {
 				}
 			}));
 
-		// Need to wait to give it time to potentially fail
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(false, methodOnViewCalled);
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(false, methodOnViewCalled);
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		// At this point the views should now be called since the lifecycle is active
 		assertEquals(true, methodOnViewCalled);
 	}
@@ -282,16 +317,15 @@ public class LifecycleTest {
 				}
 			}));
 
-		// Need to wait to give it time to potentially fail
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(false, methodOnViewCalled);
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(false, methodOnViewCalled);
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		// At this point the views should now be called since the lifecycle is active
 		assertEquals(true, methodOnViewCalled);
 	}
@@ -299,7 +333,7 @@ public class LifecycleTest {
 	@Test
 	public void onlyLastItemEmittedOnceLifecycleActiveWithObservable() throws Exception {
 		final Long[] lastValue = {-1L};
-		Observable.interval(1, TimeUnit.MILLISECONDS)
+		Observable.interval(1, TimeUnit.MILLISECONDS, scheduler)
 			.take(10)
 			.takeLast(1)
 			.compose(LifecycleBinder.bind(lifecycleOwner, new DisposableObserver<Long>() {
@@ -318,38 +352,1403 @@ public class LifecycleTest {
 				}
 			}));
 
-		// Need to wait to give it time to potentially fail
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(0, methodOnViewCalledCounter);
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		assertEquals(0, methodOnViewCalledCounter);
 
 		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
-		TimeUnit.MILLISECONDS.sleep(100);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
 		// At this point the views should now be called since the lifecycle is active
 		assertEquals(1, methodOnViewCalledCounter);
 		// Make sure it's the last item emitted, not the first
 		assertEquals(9L, lastValue[0].longValue());
 	}
-	
-	private static class TestLifecycleOwner implements LifecycleOwner {
 
-		// LifecycleRegistry is the same type of Lifecycle used by Activities and Fragments
-		private final LifecycleRegistry lifecycle;
+	/**
+	 * Bounding the items held while the LifecycleOwner isn't active.
+	 */
+
+	@Test
+	public void onlyLatestItemHeldWithLatestOnlyBufferStrategy() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer, BufferStrategy.latestOnly()));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+		emit(subject, 1, 2, 3, 4, 5);
+		assertEquals(0, observer.items.size());
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(Arrays.asList(5), observer.items);
+
+		// Once active, items are passed straight through
+		emit(subject, 6, 7);
+		assertEquals(Arrays.asList(5, 6, 7), observer.items);
+	}
+
+	@Test
+	public void lastItemsHeldWithLastItemsBufferStrategy() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		final long[] dropped = {0L};
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer, BufferStrategy.lastItems(3)
+			.withDropListener(new BufferStrategy.DropListener() {
+				@Override
+				public void onDropped(final long droppedCount) {
+					dropped[0] = droppedCount;
+				}
+			})));
+
+		emit(subject, 1, 2, 3, 4, 5);
+		subject.onComplete();
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(Arrays.asList(3, 4, 5), observer.items);
+		assertEquals(2L, dropped[0]);
+		assertEquals(true, observer.completed);
+	}
+
+	@Test
+	public void newestItemsDroppedWithDropNewestBufferStrategy() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		final long[] dropped = {0L};
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer, BufferStrategy.dropNewest(2)
+			.withDropListener(new BufferStrategy.DropListener() {
+				@Override
+				public void onDropped(final long droppedCount) {
+					dropped[0] = droppedCount;
+				}
+			})));
+
+		emit(subject, 1, 2, 3, 4, 5);
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(Arrays.asList(1, 2), observer.items);
+		assertEquals(3L, dropped[0]);
+	}
+
+	@Test
+	public void itemsHeldWhileStoppedTrimmedByMemoryLevelWithTrimMemory() throws Exception {
+		// Buffers bound by other tests are registered too, so start from nothing held
+		LifecycleBinder.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+		final long[] dropped = {0L};
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer, BufferStrategy.lastItems(10)
+			.withDropListener(new BufferStrategy.DropListener() {
+				@Override
+				public void onDropped(final long droppedCount) {
+					dropped[0] = droppedCount;
+				}
+			})));
+		PublishSubject<String> updates = PublishSubject.create();
+		RecordingObserver<String> updatesObserver = new RecordingObserver<>();
+		updates.compose(LifecycleBinder.bind(lifecycleOwner, updatesObserver, new Function<String, Character>() {
+			@Override
+			public Character apply(final String update) throws Exception {
+				return update.charAt(0);
+			}
+		}));
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+		emit(subject, 1, 2, 3, 4, 5);
+		updates.onNext("a1");
+		updates.onNext("b1");
+
+		assertEquals(0, LifecycleBinder.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE));
+		// Only the latest item is kept once running low, which every conflated item already is
+		assertEquals(4, LifecycleBinder.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW));
+		assertEquals(3, LifecycleBinder.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE));
+		assertEquals(5L, dropped[0]);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		subject.onNext(6);
+		assertEquals(Arrays.asList(6), observer.items);
+		assertEquals(0, updatesObserver.items.size());
+	}
+
+	@Test
+	public void nothingButExpiredDroppedWhileMemoryNotLowWithTrimMemory() throws Exception {
+		assertEquals(0, trimFiveItemsHeldWhileStopped(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE));
+		assertEquals(0, trimFiveItemsHeldWhileStopped(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+	}
+
+	@Test
+	public void latestItemKeptWhileMemoryRunningLowWithTrimMemory() throws Exception {
+		assertEquals(4, trimFiveItemsHeldWhileStopped(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW));
+	}
+
+	@Test
+	public void everythingDroppedWhileMemoryCriticalOrInBackgroundWithTrimMemory() throws Exception {
+		assertEquals(5, trimFiveItemsHeldWhileStopped(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL));
+		assertEquals(5, trimFiveItemsHeldWhileStopped(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND));
+		assertEquals(5, trimFiveItemsHeldWhileStopped(ComponentCallbacks2.TRIM_MEMORY_MODERATE));
+		assertEquals(5, trimFiveItemsHeldWhileStopped(ComponentCallbacks2.TRIM_MEMORY_COMPLETE));
+	}
+
+	@Test
+	public void onlyLatestItemPerKeyHeldWhileInactiveWithKeySelector() throws Exception {
+		PublishSubject<String> subject = PublishSubject.create();
+		RecordingObserver<String> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer, new Function<String, Character>() {
+			@Override
+			public Character apply(final String update) throws Exception {
+				return update.charAt(0); // Updates to the same row start with the same letter
+			}
+		}));
+
+		for (String update : new String[] {"a1", "b1", "a2", "c1", "b2", "a3"}) {
+			subject.onNext(update);
+		}
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		// Only the newest update of each row, in the order each row first appeared
+		assertEquals(Arrays.asList("a3", "b2", "c1"), observer.items);
+
+		subject.onNext("b3");
+		subject.onNext("b4");
+		assertEquals(Arrays.asList("a3", "b2", "c1", "b3", "b4"), observer.items);
+	}
+
+	@Test
+	public void itemsDeliveredSeriallyInOrderWhilePausedAndResumedDuringEmissionWithKeySelector() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		SerialObserver<Integer> observer = new SerialObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer, BindOptions.defaults()
+			.withLatestPerKey(new Function<Integer, Integer>() {
+				@Override
+				public Integer apply(final Integer item) throws Exception {
+					return item; // Every key distinct, so the order they're delivered in is certain
+				}
+			})
+			.withPausing(Lifecycle.State.STARTED)));
+
+		List<Integer> expected = emitWhilePausingAndResuming(subject, 20000);
+		assertEquals(0, observer.overlaps);
+		assertEquals(expected, observer.items);
+	}
+
+	@Test
+	public void itemsOlderThanMaxAgeEvictedWithBufferStrategy() throws Exception {
+		final long[] nanoTime = {0L};
+		final List<Long> expired = new ArrayList<>();
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer, BufferStrategy.drainAndRelease()
+			.withMaxAge(100, TimeUnit.MILLISECONDS, new Ticker() {
+				@Override
+				public long nanoTime() {
+					return nanoTime[0];
+				}
+			})
+			.withExpiryListener(new BufferStrategy.ExpiryListener() {
+				@Override
+				public void onExpired(final long expiredCount) {
+					expired.add(expiredCount);
+				}
+			})));
+
+		subject.onNext(1);
+		nanoTime[0] = TimeUnit.MILLISECONDS.toNanos(50);
+		subject.onNext(2);
+		// Evicted as the next item is held
+		nanoTime[0] = TimeUnit.MILLISECONDS.toNanos(120);
+		subject.onNext(3);
+		assertEquals(Arrays.asList(1L), expired);
+
+		// Evicted right before the held items are delivered
+		nanoTime[0] = TimeUnit.MILLISECONDS.toNanos(200);
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(Arrays.asList(3), observer.items);
+		assertEquals(Arrays.asList(1L, 2L), expired);
+
+		// Items aren't held once delivering, so they don't expire
+		nanoTime[0] = TimeUnit.SECONDS.toNanos(10);
+		subject.onNext(4);
+		assertEquals(Arrays.asList(3, 4), observer.items);
+	}
+
+	@Test
+	public void streamErrorsOnOverflowWithErrorOnOverflowBufferStrategy() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer, BufferStrategy.errorOnOverflow(2)));
+
+		emit(subject, 1, 2, 3);
+		// Upstream is disposed as soon as the buffer overflows
+		assertEquals(false, subject.hasObservers());
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(Arrays.asList(1, 2), observer.items);
+		assertTrue(observer.error instanceof MissingBackpressureException);
+	}
+
+	@Test
+	public void allItemsDeliveredWithDrainAndReleaseBufferStrategy() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer, BufferStrategy.drainAndRelease()));
+
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			subject.onNext(i);
+			expected.add(i);
+		}
+		assertEquals(0, observer.items.size());
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(expected, observer.items);
+	}
+
+	@Test
+	public void itemsPastInMemoryWindowSpilledAndDeliveredInOrderWithSpillToDisk() throws Exception {
+		File directory = Files.createTempDirectory("spill").toFile();
+		Serializer<Integer> serializer = new IntegerSerializer();
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer,
+			BufferStrategy.spillToDisk(4, directory, serializer)));
+
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			subject.onNext(i);
+			expected.add(i);
+		}
+		assertEquals(1, directory.list().length);
+
+		// Spilled items are read back after those in memory, and the file is deleted once the last one is
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(expected, observer.items);
+		assertEquals(0, directory.list().length);
+
+		// Spilled again while stopped, then deleted along with what's left in it once destroyed
+		TestLifecycleOwner pausingOwner = new TestLifecycleOwner().start();
+		RecordingObserver<Integer> pausingObserver = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(pausingOwner, pausingObserver, BindOptions.defaults()
+			.withBufferStrategy(BufferStrategy.spillToDisk(1, directory, serializer))
+			.withPausing(Lifecycle.State.STARTED)));
+		subject.onNext(100);
+		pausingOwner.stop();
+		emit(subject, 101, 102, 103);
+		assertEquals(1, directory.list().length);
+		pausingOwner.destroy();
+		assertEquals(0, directory.list().length);
+		assertEquals(Arrays.asList(100), pausingObserver.items);
+		assertTrue(directory.delete());
+	}
+
+	@Test
+	public void itemsDeliveredSeriallyInOrderWhilePausedAndResumedDuringEmissionWithSpillToDisk() throws Exception {
+		File directory = Files.createTempDirectory("spill").toFile();
+		PublishSubject<Integer> subject = PublishSubject.create();
+		SerialObserver<Integer> observer = new SerialObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer, BindOptions.defaults()
+			.withBufferStrategy(BufferStrategy.spillToDisk(4, directory, new IntegerSerializer()))
+			.withPausing(Lifecycle.State.STARTED)));
+
+		List<Integer> expected = emitWhilePausingAndResuming(subject, 20000);
+		assertEquals(0, observer.overlaps);
+		assertEquals(expected, observer.items);
+		assertTrue(directory.delete()); // Only once the file is gone
+	}
+
+	@Test
+	public void maybeResultReleasedOnceDeliveredWithBufferStrategy() throws Exception {
+		final WeakReference<?>[] result = new WeakReference<?>[1];
+		final boolean[] delivered = {false};
+		Maybe.fromCallable(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					Object value = new Object();
+					result[0] = new WeakReference<>(value);
+					return value;
+				}
+			})
+			.compose(LifecycleBinder.bind(lifecycleOwner, new DisposableMaybeObserver<Object>() {
+				@Override
+				public void onSuccess(final Object value) {
+					delivered[0] = true;
+				}
+
+				@Override
+				public void onError(final Throwable e) {
+				}
+
+				@Override
+				public void onComplete() {
+				}
+			}, BufferStrategy.drainAndRelease()));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(true, delivered[0]);
+		
+		// Nothing but the stream could still be holding on to the result at this point
+		for (int i = 0; i < 10 && result[0].get() != null; i++) {
+			System.gc();
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		assertEquals(null, result[0].get());
+	}
+
+	@Test
+	public void maybeResultArrivingAfterDisposeNotHeldWithBufferStrategy() throws Exception {
+		// Stands in for an upstream that doesn't stop when disposed
+		final List<MaybeObserver<? super Object>> upstreamObservers = new ArrayList<>();
+		Maybe<Object> upstream = new Maybe<Object>() {
+			@Override
+			protected void subscribeActual(final MaybeObserver<? super Object> observer) {
+				observer.onSubscribe(Disposables.empty());
+				upstreamObservers.add(observer);
+			}
+		};
+		final boolean[] delivered = {false};
+		DisposableMaybeObserver<Object> observer = new DisposableMaybeObserver<Object>() {
+			@Override
+			public void onSuccess(final Object value) {
+				delivered[0] = true;
+			}
+
+			@Override
+			public void onError(final Throwable e) {
+			}
+
+			@Override
+			public void onComplete() {
+			}
+		};
+		upstream.compose(LifecycleBinder.bind(lifecycleOwner, observer, BufferStrategy.drainAndRelease()));
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		observer.dispose();
+
+		Object value = new Object();
+		WeakReference<Object> result = new WeakReference<>(value);
+		upstreamObservers.get(0).onSuccess(value);
+		value = null;
+		assertEquals(false, delivered[0]);
+		// The upstream still holds on to the stream, which mustn't hold on to the result
+		for (int i = 0; i < 10 && result.get() != null; i++) {
+			System.gc();
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		assertEquals(null, result.get());
+	}
+
+	/**
+	 * Flowables stop requesting items while the LifecycleOwner isn't active.
+	 */
+
+	@Test
+	public void upstreamNotRequestedFromWhileLifecycleInactiveWithFlowable() throws Exception {
+		final long[] upstreamRequested = {0L};
+		TestSubscriber<Integer> subscriber = new TestSubscriber<>(0L);
+		Flowable.range(0, 100)
+			.doOnRequest(new LongConsumer() {
+				@Override
+				public void accept(final long n) throws Exception {
+					upstreamRequested[0] += n;
+				}
+			})
+			.compose(LifecycleBinder.bind(lifecycleOwner, subscriber, 4));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+		assertEquals(0L, upstreamRequested[0]);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		// The first prefetch-sized batch is requested as soon as the LifecycleOwner is active
+		assertEquals(4L, upstreamRequested[0]);
+		subscriber.request(2);
+		subscriber.assertValues(0, 1);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_STOP);
+		subscriber.request(10);
+		// Nothing is delivered or requested while stopped
+		subscriber.assertValues(0, 1);
+		assertEquals(4L, upstreamRequested[0]);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		subscriber.assertValues(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+		// Never more than prefetch items in flight
+		assertTrue(upstreamRequested[0] <= 12 + 4);
+	}
+
+	@Test
+	public void streamsBoundOnAnotherThreadAreSubscribedFromOnePostToMainThread() throws Exception {
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		final List<RecordingObserver<Integer>> observers = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			observers.add(new RecordingObserver<Integer>());
+		}
+		Thread binder = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < observers.size(); i++) {
+					Observable.just(i).compose(LifecycleBinder.bind(lifecycleOwner, observers.get(i)));
+				}
+			}
+		});
+		binder.start();
+		binder.join();
+		assertEquals(1, mainThread.getPostedCount());
+		assertEquals(0, observers.get(0).items.size());
+
+		mainThread.runPosted();
+		for (int i = 0; i < observers.size(); i++) {
+			assertEquals(Arrays.asList(i), observers.get(i).items);
+		}
+	}
+
+	@Test
+	public void pausedBufferResumedWhenRegistrationPostedFromAnotherThreadRunsWhileBinding() throws Exception {
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		final LifecycleDispatcher[] dispatcher = new LifecycleDispatcher[1];
+		Thread binder = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				dispatcher[0] = LifecycleDispatcher.get(lifecycleOwner);
+			}
+		});
+		binder.start();
+		binder.join();
+		assertEquals(Lifecycle.State.INITIALIZED, dispatcher[0].getCurrentState());
+
+		final List<Boolean> pauses = new ArrayList<>();
+		new PauseWhenInactiveObserver(dispatcher[0], Lifecycle.State.STARTED, new Pausable() {
+			@Override
+			public void setPaused(final boolean paused) {
+				pauses.add(paused);
+				// The posted registration gets to run right after the state is first checked
+				mainThread.runPosted();
+			}
+		}, null, 0);
+		assertEquals(Lifecycle.State.STARTED, dispatcher[0].getCurrentState());
+		assertEquals(false, pauses.get(pauses.size() - 1));
+	}
+
+	/**
+	 * Disposing the upstream once the LifecycleOwner is destroyed.
+	 */
+
+	@Test
+	public void itemEmittedOnAnotherThreadAfterLifecycleDestroyedIsFiltered() throws Exception {
+		final PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer,
+			BindOptions.defaults().withBufferStrategy(BufferStrategy.drainAndRelease())));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 1);
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		Thread emitter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				emit(subject, 2);
+			}
+		});
+		emitter.start();
+		emitter.join();
+		assertEquals(Arrays.asList(1), observer.items);
+	}
+
+	@Test
+	public void upstreamDisposedWhenLifecycleDestroyedWithDisposeDestroyMode() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer,
+			BindOptions.defaults().withDestroyMode(DestroyMode.DISPOSE)));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 1);
+		assertEquals(true, subject.hasObservers());
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		assertEquals(false, subject.hasObservers());
+		assertEquals(Arrays.asList(1), observer.items);
+		assertEquals(false, observer.completed);
+	}
+
+	@Test
+	public void upstreamDisposedAndCompletedWhenLifecycleDestroyedWithDisposeAndCompleteDestroyMode() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer,
+			BindOptions.defaults()
+				.withBufferStrategy(BufferStrategy.drainAndRelease())
+				.withDestroyMode(DestroyMode.DISPOSE_AND_COMPLETE)));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 1);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		assertEquals(false, subject.hasObservers());
+		assertEquals(Arrays.asList(1), observer.items);
+		assertEquals(true, observer.completed);
+	}
+
+	@Test
+	public void upstreamCancelledWhenLifecycleDestroyedWithFlowable() throws Exception {
+		final boolean[] cancelled = {false};
+		TestSubscriber<Long> subscriber = new TestSubscriber<>();
+		Flowable.interval(1, TimeUnit.MILLISECONDS)
+			.doOnCancel(new Action() {
+				@Override
+				public void run() throws Exception {
+					cancelled[0] = true;
+				}
+			})
+			.compose(LifecycleBinder.bind(lifecycleOwner, subscriber,
+				BindOptions.defaults().withDestroyMode(DestroyMode.DISPOSE_AND_COMPLETE)));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		assertEquals(true, cancelled[0]);
+		subscriber.assertComplete();
+	}
+
+	@Test
+	public void gateDropsHeldItemsAndOnlyCancelsUpstreamWhenDisposingOnDestroy() throws Exception {
+		for (DestroyMode destroyMode : DestroyMode.values()) {
+			final boolean[] cancelled = {false};
+			TestSubscriber<Integer> subscriber = new TestSubscriber<>(0L);
+			TestLifecycleOwner owner = new TestLifecycleOwner();
+			Flowable<Integer> upstream = Flowable.range(0, 100)
+				.doOnCancel(new Action() {
+					@Override
+					public void run() throws Exception {
+						cancelled[0] = true;
+					}
+				});
+			// Without the rest of the wiring, so it's the gate itself that has to cancel
+			new LifecycleGatedFlowable<>(upstream, LifecycleDispatcher.get(owner), Lifecycle.State.STARTED,
+				destroyMode, 4).subscribe(subscriber);
+
+			owner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+			owner.handleLifecycleEvent(Lifecycle.Event.ON_STOP);
+			owner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+			// What was requested before stopping is never delivered, however much is requested once destroyed
+			subscriber.request(10);
+			subscriber.assertNoValues();
+			subscriber.assertNotTerminated();
+			assertEquals(destroyMode != DestroyMode.FILTER, cancelled[0]);
+		}
+	}
+
+	@Test
+	public void upstreamDisposedAndCompletedWhenLifecycleDestroyedWithoutBufferStrategy() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer,
+			BindOptions.defaults().withDestroyMode(DestroyMode.DISPOSE_AND_COMPLETE)));
+
+		assertEquals(false, subject.hasObservers());
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 1, 2);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		emit(subject, 3);
+		assertEquals(false, subject.hasObservers());
+		assertEquals(Arrays.asList(1, 2), observer.items);
+		assertEquals(true, observer.completed);
+	}
+
+	@Test
+	public void maybeCompletedOnceWhenLifecycleDestroyedWithDisposeAndCompleteDestroyMode() throws Exception {
+		PublishSubject<String> subject = PublishSubject.create();
+		TestObserver<String> observer = new TestObserver<>();
+		subject.firstElement().compose(LifecycleBinder.bind(lifecycleOwner, (MaybeObserver<String>) observer,
+			BindOptions.defaults().withDestroyMode(DestroyMode.DISPOSE_AND_COMPLETE)));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		subject.onNext("Item");
+		assertEquals(false, subject.hasObservers());
+		observer.assertNoValues();
+		observer.assertComplete();
+	}
+
+	/**
+	 * Sharing one upstream between streams bound with the same key.
+	 */
+
+	@Test
+	public void upstreamSharedByKeyUntilEveryLifecycleDestroyedWithBindShared() throws Exception {
+		final int[] subscriptions = {0};
+		PublishSubject<Integer> subject = PublishSubject.create();
+		Observable<Integer> upstream = subject.doOnSubscribe(new Consumer<Disposable>() {
+			@Override
+			public void accept(final Disposable disposable) throws Exception {
+				subscriptions[0]++;
+			}
+		});
+		TestLifecycleOwner otherLifecycleOwner = new TestLifecycleOwner();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		RecordingObserver<Integer> otherObserver = new RecordingObserver<>();
+		upstream.compose(LifecycleBinder.bindShared(lifecycleOwner, "profile", Integer.class, observer));
+		upstream.compose(LifecycleBinder.bindShared(otherLifecycleOwner, "profile", Integer.class, otherObserver));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 1);
+		otherLifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 2);
+		assertEquals(1, subscriptions[0]);
+		assertEquals(Arrays.asList(1, 2), observer.items);
+		assertEquals(Arrays.asList(1, 2), otherObserver.items);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		emit(subject, 3);
+		assertEquals(Arrays.asList(1, 2, 3), otherObserver.items);
+
+		otherLifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		assertEquals(false, subject.hasObservers());
+		assertEquals(0, SharedStreams.size());
+	}
+
+	@Test
+	public void onlyLatestItemReplayedToObserverBoundLaterWithBindShared() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		TestLifecycleOwner otherLifecycleOwner = new TestLifecycleOwner();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		RecordingObserver<Integer> otherObserver = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bindShared(lifecycleOwner, "profile", Integer.class, observer));
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 1, 2, 3);
+
+		subject.compose(LifecycleBinder.bindShared(otherLifecycleOwner, "profile", Integer.class, otherObserver));
+		otherLifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(Arrays.asList(1, 2, 3), observer.items);
+		assertEquals(Arrays.asList(3), otherObserver.items);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		otherLifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		assertEquals(0, SharedStreams.size());
+	}
+
+	@Test
+	public void replayBoundedByBufferStrategyOfFirstBindWithBindShared() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		TestLifecycleOwner otherLifecycleOwner = new TestLifecycleOwner();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		RecordingObserver<Integer> otherObserver = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bindShared(lifecycleOwner, "profile", Integer.class, observer,
+			BindOptions.defaults().withBufferStrategy(BufferStrategy.lastItems(2))));
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 1, 2, 3);
+
+		subject.compose(LifecycleBinder.bindShared(otherLifecycleOwner, "profile", Integer.class, otherObserver));
+		otherLifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(Arrays.asList(2, 3), otherObserver.items);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		otherLifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		assertEquals(0, SharedStreams.size());
+	}
+
+	@Test
+	public void keySharedWithAnotherTypeFailsWithBindShared() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		PublishSubject<String> otherSubject = PublishSubject.create();
+		subject.compose(LifecycleBinder.bindShared(lifecycleOwner, "profile", Integer.class,
+			new RecordingObserver<Integer>()));
+		try {
+			otherSubject.compose(LifecycleBinder.bindShared(lifecycleOwner, "profile", String.class,
+				new RecordingObserver<String>()));
+			fail("Expected the key to be rejected for another type");
+		} catch (IllegalArgumentException expected) {
+			// Nothing was bound for it
+		}
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		assertEquals(0, SharedStreams.size());
+	}
+
+	@Test
+	public void upstreamKeptRunningAcrossConfigurationChangeWithBindRetained() throws Exception {
+		final int[] subscriptions = {0};
+		PublishSubject<Integer> subject = PublishSubject.create();
+		Observable<Integer> upstream = subject.doOnSubscribe(new Consumer<Disposable>() {
+			@Override
+			public void accept(final Disposable disposable) throws Exception {
+				subscriptions[0]++;
+			}
+		});
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		upstream.compose(LifecycleBinder.bindRetained(lifecycleOwner, "feed", Integer.class, observer,
+			BindOptions.defaults().withBufferStrategy(BufferStrategy.lastItems(2))));
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 1);
+
+		// Rotated, the new instance binds again before the main thread gets to anything posted during onDestroy()
+		lifecycleOwner.setChangingConfigurations(true);
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		emit(subject, 2);
+		TestLifecycleOwner recreatedLifecycleOwner = new TestLifecycleOwner();
+		RecordingObserver<Integer> recreatedObserver = new RecordingObserver<>();
+		upstream.compose(LifecycleBinder.bindRetained(recreatedLifecycleOwner, "feed", Integer.class, recreatedObserver));
+		recreatedLifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		mainThread.runPosted();
+		emit(subject, 3);
+		assertEquals(1, subscriptions[0]);
+		assertEquals(Arrays.asList(1), observer.items);
+		assertEquals(Arrays.asList(1, 2, 3), recreatedObserver.items);
+
+		// Finished for good
+		recreatedLifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		assertEquals(false, subject.hasObservers());
+		assertEquals(0, SharedStreams.size());
+	}
+
+	/**
+	 * Choosing when the upstream is subscribed to.
+	 */
+
+	@Test
+	public void upstreamSubscribedOnceCreatedWithPrefetchOnCreatedSubscriptionMode() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer,
+			BindOptions.defaults().withSubscriptionMode(SubscriptionMode.PREFETCH_ON_CREATED)));
+		assertEquals(false, subject.hasObservers());
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+		assertEquals(true, subject.hasObservers());
+		emit(subject, 1);
+		assertEquals(0, observer.items.size());
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 2);
+		assertEquals(Arrays.asList(1, 2), observer.items);
+	}
+
+	@Test
+	public void upstreamNotSubscribedUntilActiveWithLazySubscriptionModeAndBufferStrategy() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer,
+			BindOptions.defaults()
+				.withBufferStrategy(BufferStrategy.latestOnly())
+				.withSubscriptionMode(SubscriptionMode.LAZY_ON_ACTIVE)));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+		assertEquals(false, subject.hasObservers());
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 1);
+		assertEquals(Arrays.asList(1), observer.items);
+	}
+
+	/**
+	 * Pausing delivery every time the LifecycleOwner drops below a given state.
+	 */
+
+	@Test
+	public void itemsHeldWhileStoppedAndFlushedOnStartWithPausing() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer,
+			BindOptions.defaults().withPausing(Lifecycle.State.STARTED)));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 1);
+		assertEquals(Arrays.asList(1), observer.items);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_STOP);
+		emit(subject, 2, 3);
+		assertEquals(Arrays.asList(1), observer.items);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(Arrays.asList(1, 2, 3), observer.items);
+		emit(subject, 4);
+		assertEquals(Arrays.asList(1, 2, 3, 4), observer.items);
+	}
+
+	@Test
+	public void itemsDeliveredSeriallyInOrderWhilePausedAndResumedDuringEmissionOnAnotherThread() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		SerialObserver<Integer> observer = new SerialObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer, BindOptions.defaults()
+			.withBufferStrategy(BufferStrategy.drainAndRelease())
+			.withPausing(Lifecycle.State.STARTED)));
+
+		List<Integer> expected = emitWhilePausingAndResuming(subject, 20000);
+		assertEquals(0, observer.overlaps);
+		assertEquals(expected, observer.items);
+	}
+
+	@Test
+	public void itemsHeldWhilePausedAndBoundedByBufferStrategyWithPausingBelowResumed() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer,
+			BindOptions.defaults()
+				.withBufferStrategy(BufferStrategy.latestOnly())
+				.withPausing(Lifecycle.State.RESUMED)));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 1);
+		// STARTED isn't enough to be considered active
+		assertEquals(0, observer.items.size());
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_RESUME);
+		assertEquals(Arrays.asList(1), observer.items);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_PAUSE);
+		emit(subject, 2, 3);
+		assertEquals(Arrays.asList(1), observer.items);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_RESUME);
+		assertEquals(Arrays.asList(1, 3), observer.items);
+	}
+
+	@Test
+	public void pausedStreamsResumedByPriorityWithinFrameBudgetWithResumeScheduler() throws Exception {
+		final long[] nanoTime = {0L};
+		FakeFrameClock frameClock = new FakeFrameClock();
+		ResumeScheduler resumeScheduler = new ResumeScheduler(frameClock, 16, TimeUnit.MILLISECONDS, new Ticker() {
+			@Override
+			public long nanoTime() {
+				return nanoTime[0];
+			}
+		});
+		final List<String> delivered = new ArrayList<>();
+		PublishSubject<String> subject = PublishSubject.create();
+		for (final int priority : new int[] {1, 3, 2}) {
+			subject.compose(LifecycleBinder.bind(lifecycleOwner, new RecordingObserver<String>() {
+				@Override
+				public void onNext(final String value) {
+					delivered.add(value + priority);
+					nanoTime[0] += TimeUnit.MILLISECONDS.toNanos(10); // Each takes 10ms to update its views
+				}
+			}, BindOptions.defaults()
+				.withPausing(Lifecycle.State.STARTED)
+				.withResumeScheduler(resumeScheduler, priority)));
+		}
+
+		subject.onNext("Item");
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(0, delivered.size());
+
+		frameClock.doFrame();
+		assertEquals(Arrays.asList("Item3", "Item2"), delivered);
+
+		frameClock.doFrame();
+		assertEquals(Arrays.asList("Item3", "Item2", "Item1"), delivered);
+		assertEquals(0, frameClock.callbacks.size());
+	}
+
+	/**
+	 * Delivering items held while inactive as one batch.
+	 */
+
+	@Test
+	public void itemsHeldWhileInactiveDeliveredAsOneBatchWithBindBatched() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<List<Integer>> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bindBatched(lifecycleOwner, observer));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+		emit(subject, 1, 2, 3);
+		assertEquals(0, observer.items.size());
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(Arrays.asList(Arrays.asList(1, 2, 3)), observer.items);
+
+		// One at a time once the held items are delivered
+		emit(subject, 4, 5);
+		assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4), Arrays.asList(5)), observer.items);
+	}
+
+	@Test
+	public void batchesDeliveredSeriallyInOrderWhilePausedAndResumedDuringEmissionWithBindBatched() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		SerialObserver<List<Integer>> observer = new SerialObserver<>();
+		subject.compose(LifecycleBinder.bindBatched(lifecycleOwner, observer, BindOptions.defaults()
+			.withBufferStrategy(BufferStrategy.drainAndRelease())
+			.withPausing(Lifecycle.State.STARTED)));
+
+		List<Integer> expected = emitWhilePausingAndResuming(subject, 20000);
+		assertEquals(0, observer.overlaps);
+		List<Integer> delivered = new ArrayList<>();
+		for (List<Integer> batch : observer.items) {
+			delivered.addAll(batch);
+		}
+		assertEquals(expected, delivered);
+	}
+
+	@Test
+	public void itemsDeliveredPerWindowWithBindBatchedAndBatchWindow() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<List<Integer>> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bindBatched(lifecycleOwner, observer,
+			BindOptions.defaults()
+				.withBatchWindow(100, TimeUnit.MILLISECONDS, scheduler)
+				.withPausing(Lifecycle.State.STARTED)));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 1, 2);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+		assertEquals(Arrays.asList(Arrays.asList(1, 2)), observer.items);
+
+		// Windows emitted while stopped are delivered together once started again
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_STOP);
+		emit(subject, 3);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+		emit(subject, 4);
+		scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+		assertEquals(1, observer.items.size());
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4)), observer.items);
+	}
+
+	/**
+	 * Delivering items on frames rather than on whichever thread they're emitted on.
+	 */
+
+	@Test
+	public void itemsFromOtherThreadsDeliveredTogetherOnNextFrameWithFrameClock() throws Exception {
+		FakeFrameClock frameClock = new FakeFrameClock();
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer,
+			BindOptions.defaults()
+				.withBufferStrategy(BufferStrategy.drainAndRelease())
+				.withFrameClock(frameClock)));
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+
+		// Already on the frame thread, so there's no need to wait for a frame
+		frameClock.onFrameThread = true;
+		emit(subject, 1);
+		assertEquals(Arrays.asList(1), observer.items);
+		assertEquals(0, frameClock.callbacks.size());
+
+		frameClock.onFrameThread = false;
+		emit(subject, 2, 3, 4);
+		subject.onComplete();
+		assertEquals(Arrays.asList(1), observer.items);
+		// Only one callback for the whole frame
+		assertEquals(1, frameClock.callbacks.size());
+
+		frameClock.doFrame();
+		assertEquals(Arrays.asList(1, 2, 3, 4), observer.items);
+		assertEquals(true, observer.completed);
+	}
+
+	@Test
+	public void itemNotDeliveredOnFrameAfterLifecycleDestroyedWithFrameClock() throws Exception {
+		FakeFrameClock frameClock = new FakeFrameClock();
+		final Integer[] delivered = {null};
+		Single.just(1)
+			.compose(LifecycleBinder.bind(lifecycleOwner, new DisposableSingleObserver<Integer>() {
+				@Override
+				public void onSuccess(final Integer value) {
+					delivered[0] = value;
+				}
+
+				@Override
+				public void onError(final Throwable e) {
+				}
+			}, BindOptions.defaults().withFrameClock(frameClock)));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		assertEquals(null, delivered[0]);
+		assertEquals(1, frameClock.callbacks.size());
+
+		// The destroyed check happens at delivery time, not when the item was queued
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		frameClock.doFrame();
+		assertEquals(null, delivered[0]);
+	}
+
+	/**
+	 * Metering what happens to the items of bound streams.
+	 */
+
+	@Test
+	public void itemsCountedWithMetrics() throws Exception {
+		LifecycleRxStats stats = new LifecycleRxStats();
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer,
+			BindOptions.defaults()
+				.withBufferStrategy(BufferStrategy.drainAndRelease())
+				.withMetrics(stats)));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+		emit(subject, 1, 2);
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		emit(subject, 3);
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		emit(subject, 4);
+
+		assertEquals(Arrays.asList(1, 2, 3), observer.items);
+		StreamCounters counters = stats.getOwnerCounters(TestLifecycleOwner.class.getName());
+		assertEquals(2L, counters.getBuffered());
+		assertEquals(3L, counters.getDelivered());
+		assertEquals(1L, counters.getDroppedAfterDestroy());
+		assertEquals(1L, counters.getSubscribed());
+		assertEquals(3L, stats.getLatencyHistogram().getTotalCount());
+	}
+
+	@Test
+	public void itemsCountedWithGlobalMetricsOnlyOnceSet() throws Exception {
+		LifecycleRxStats stats = new LifecycleRxStats();
+		Observable.just(1).compose(LifecycleBinder.bind(lifecycleOwner, new RecordingObserver<Integer>()));
+		LifecycleBinder.setGlobalMetrics(stats);
+		try {
+			Observable.just(2).compose(LifecycleBinder.bind(lifecycleOwner, new RecordingObserver<Integer>()));
+			Single.just(3).compose(LifecycleBinder.bind(lifecycleOwner, new DisposableSingleObserver<Integer>() {
+				@Override
+				public void onSuccess(final Integer value) {
+				}
+
+				@Override
+				public void onError(final Throwable e) {
+				}
+			}));
+			lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		} finally {
+			LifecycleBinder.setGlobalMetrics(null);
+		}
+
+		StreamCounters counters = stats.getOwnerCounters(TestLifecycleOwner.class.getName());
+		// The stream bound before the listener was set isn't metered
+		assertEquals(2L, counters.getDelivered());
+		assertEquals(2L, counters.getSubscribed());
+	}
+
+	/**
+	 * Sharing one lifecycle observer between every stream bound to the same LifecycleOwner.
+	 */
 
-		TestLifecycleOwner() {
-			this.lifecycle = new LifecycleRegistry(this);
+	@Test
+	public void singleLifecycleObserverRegisteredForManyBoundStreams() throws Exception {
+		List<RecordingObserver<Integer>> observers = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			RecordingObserver<Integer> observer = new RecordingObserver<>();
+			observers.add(observer);
+			Observable.just(i).compose(LifecycleBinder.bind(lifecycleOwner, observer));
+		}
+		assertEquals(1, lifecycleOwner.getLifecycle().getObserverCount());
+		assertEquals(true, LifecycleDispatcher.isTracked(lifecycleOwner));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		// Every stream bound before being active is still subscribed to once active
+		for (int i = 0; i < 40; i++) {
+			assertEquals(Arrays.asList(i), observers.get(i).items);
 		}
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		assertEquals(0, lifecycleOwner.getLifecycle().getObserverCount());
+		assertEquals(false, LifecycleDispatcher.isTracked(lifecycleOwner));
+	}
+
+	@Test
+	public void sameTransformerComposedIntoManyStreamsWithForOwner() throws Exception {
+		OwnerBinder binder = LifecycleBinder.forOwner(lifecycleOwner);
+		final List<Integer> items = new ArrayList<>();
+		// Not a DisposableObserver, since it's subscribed to more than one stream
+		ObservableTransformer<Integer, Integer> transformer = binder.bind(new Observer<Integer>() {
+			@Override
+			public void onSubscribe(final Disposable d) {
+			}
+
+			@Override
+			public void onNext(final Integer value) {
+				items.add(value);
+			}
+
+			@Override
+			public void onError(final Throwable e) {
+			}
+
+			@Override
+			public void onComplete() {
+			}
+		});
+		Observable.just(1).compose(transformer);
+		Observable.just(2).compose(transformer);
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+		assertEquals(Collections.<Integer>emptyList(), items);
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		// Subscribed in the order they were bound
+		assertEquals(Arrays.asList(1, 2), items);
+
+		// Bound while active, so subscribed right away
+		PublishSubject<Integer> subject = PublishSubject.create();
+		subject.compose(transformer);
+		subject.onNext(3);
+		assertEquals(Arrays.asList(1, 2, 3), items);
+		assertEquals(1, LifecycleDispatcher.get(lifecycleOwner).listenerCount());
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		subject.onNext(4);
+		Observable.just(5).compose(transformer);
+		assertEquals(Arrays.asList(1, 2, 3), items);
+	}
+
+	@Test
+	public void lifecycleOwnerAndBinderCollectedOnceUnreachableWithForOwner() throws Exception {
+		TestLifecycleOwner otherLifecycleOwner = new TestLifecycleOwner();
+		OwnerBinder binder = LifecycleBinder.forOwner(otherLifecycleOwner);
+		Observable.just(1).compose(binder.bind(new RecordingObserver<Integer>()));
+		otherLifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+		WeakReference<TestLifecycleOwner> ownerReference = new WeakReference<>(otherLifecycleOwner);
+		WeakReference<OwnerBinder> binderReference = new WeakReference<>(binder);
+		otherLifecycleOwner = null;
+		binder = null;
+
+		// Never destroyed, which the binder listening to its dispatcher mustn't keep it from being collected for
+		for (int i = 0; i < 10 && (ownerReference.get() != null || binderReference.get() != null); i++) {
+			System.gc();
+			TimeUnit.MILLISECONDS.sleep(10);
+			// Dispatchers of collected owners are only let go of the next time the map is used
+			LifecycleDispatcher.get(lifecycleOwner);
+		}
+		assertEquals(null, ownerReference.get());
+		assertEquals(null, binderReference.get());
+	}
+
+	/**
+	 * Nothing is held on to once the LifecycleOwner is destroyed.
+	 */
+
+	@Test
+	public void listenersReleasedOnceStreamCompletesWhileLifecycleActive() throws Exception {
+		PublishSubject<Integer> subject = PublishSubject.create();
+		RecordingObserver<Integer> observer = new RecordingObserver<>();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, observer, BindOptions.defaults()
+			.withBufferStrategy(BufferStrategy.drainAndRelease())
+			.withDestroyMode(DestroyMode.DISPOSE)
+			.withPausing(Lifecycle.State.STARTED)));
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+
+		subject.onNext(1);
+		subject.onComplete();
+		assertEquals(true, observer.completed);
+		assertEquals(0, LifecycleDispatcher.get(lifecycleOwner).listenerCount());
+	}
+
+	@Test
+	public void nothingRetainedAfterLifecycleDestroyedWithLeakDetector() throws Exception {
+		LeakDetector leakDetector = new LeakDetector();
+		LifecycleBinder.setLeakDetector(leakDetector);
+		// Stands in for an upstream kept running by a scheduler for as long as the app lives
+		PublishSubject<Integer> subject = PublishSubject.create();
+		try {
+			bindEveryTypeThenDestroy(subject);
+		} finally {
+			LifecycleBinder.setLeakDetector(null);
+		}
+
+		assertEquals(Collections.<LeakDetector.Leak>emptyList(), leakDetector.findLeaks());
+	}
+
+	@Test
+	public void observerOfRunningUpstreamReportedWithLeakDetector() throws Exception {
+		LeakDetector leakDetector = new LeakDetector();
+		LifecycleBinder.setLeakDetector(leakDetector);
+		PublishSubject<Integer> subject = PublishSubject.create();
+		try {
+			bindFilteredThenDestroy(subject);
+		} finally {
+			LifecycleBinder.setLeakDetector(null);
+		}
+
+		// Filtering keeps the upstream running, and it holds on to the observer subscribed to it
+		List<LeakDetector.Leak> leaks = leakDetector.findLeaks();
+		assertEquals(1, leaks.size());
+		assertEquals(LeakDetector.Leak.Kind.OBSERVER, leaks.get(0).getKind());
+		assertEquals(RecordingObserver.class.getName(), leaks.get(0).getClassName());
+		assertEquals("bindFilteredThenDestroy", leaks.get(0).getCallSite().getMethodName());
+		assertEquals(true, subject.hasObservers());
+	}
+
+	/**
+	 * Random lifecycle transitions while items are emitted from other threads.
+	 */
+
+	@Test
+	public void invariantsHoldAcrossRandomTransitionsWithStressRunner() throws Exception {
+		LifecycleStressRunner.Report report = new LifecycleStressRunner(42L).run();
+
+		assertEquals(100, report.getOwners());
+		assertTrue(report.toString(), report.getTransitions() > 1000);
+		assertTrue(report.toString(), report.getItemsDelivered() > 0);
+	}
+
+	/**
+	 * Only referenced from this method, so nothing here is reachable from the test once it returns.
+	 */
+	private static void bindEveryTypeThenDestroy(final PublishSubject<Integer> subject) {
+		TestLifecycleOwner lifecycleOwner = new TestLifecycleOwner();
+		BindOptions dispose = BindOptions.defaults().withDestroyMode(DestroyMode.DISPOSE);
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, new RecordingObserver<Integer>(), dispose));
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, new RecordingObserver<Integer>(), dispose
+			.withBufferStrategy(BufferStrategy.drainAndRelease())
+			.withPausing(Lifecycle.State.STARTED)));
+		subject.compose(LifecycleBinder.bindBatched(lifecycleOwner, new RecordingObserver<List<Integer>>(), dispose));
+		subject.firstElement().compose(LifecycleBinder.bind(lifecycleOwner, new DisposableMaybeObserver<Integer>() {
+			@Override
+			public void onSuccess(final Integer value) {
+			}
+
+			@Override
+			public void onError(final Throwable e) {
+			}
+
+			@Override
+			public void onComplete() {
+			}
+		}, dispose.withBufferStrategy(BufferStrategy.drainAndRelease())));
+		subject.toFlowable(BackpressureStrategy.LATEST)
+			.compose(LifecycleBinder.bind(lifecycleOwner, new TestSubscriber<Integer>(), dispose));
+		// Streams that complete on their own are let go of even when filtered
+		Observable.just(1).compose(LifecycleBinder.bind(lifecycleOwner, new RecordingObserver<Integer>()));
+
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		subject.onNext(1);
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+	}
+
+	private static void bindFilteredThenDestroy(final PublishSubject<Integer> subject) {
+		TestLifecycleOwner lifecycleOwner = new TestLifecycleOwner();
+		subject.compose(LifecycleBinder.bind(lifecycleOwner, new RecordingObserver<Integer>()));
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_START);
+		lifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+	}
+
+	/**
+	 * Emits that many items on another thread while stopping and starting the LifecycleOwner on this one, leaving it 
+	 * started once every item is emitted.
+	 * 
+	 * @return the items emitted, in order.
+	 */
+	private List<Integer> emitWhilePausingAndResuming(final PublishSubject<Integer> subject, final int count)
+			throws InterruptedException {
+		final List<Integer> emitted = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			emitted.add(i);
+		}
+		lifecycleOwner.start();
+		Thread emitter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (Integer item : emitted) {
+					subject.onNext(item);
+				}
+			}
+		});
+		emitter.start();
+		while (emitter.isAlive()) {
+			lifecycleOwner.stop();
+			Thread.yield();
+			lifecycleOwner.start();
+		}
+		emitter.join();
+		return emitted;
+	}
+
+	/**
+	 * @return how many of five items held for a stopped LifecycleOwner are dropped at the memory level.
+	 */
+	private static int trimFiveItemsHeldWhileStopped(int level) {
+		// Buffers bound by other tests are registered too, so start from nothing held
+		LifecycleBinder.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+		TestLifecycleOwner stoppedLifecycleOwner = new TestLifecycleOwner();
+		PublishSubject<Integer> subject = PublishSubject.create();
+		subject.compose(LifecycleBinder.bind(stoppedLifecycleOwner, new RecordingObserver<Integer>(),
+			BufferStrategy.lastItems(10)));
+		stoppedLifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+		emit(subject, 1, 2, 3, 4, 5);
+		int trimmed = LifecycleBinder.trimMemory(level);
+		stoppedLifecycleOwner.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+		return trimmed;
+	}
+
+	private static void emit(final PublishSubject<Integer> subject, final Integer... items) {
+		for (Integer item : items) {
+			subject.onNext(item);
+		}
+	}
+	
+	private static class RecordingObserver<T> extends DisposableObserver<T> {
 		
+		final List<T> items = new ArrayList<>();
+		boolean completed;
+		Throwable error;
+
+		@Override
+		public void onNext(final T value) {
+			items.add(value);
+		}
+
+		@Override
+		public void onError(final Throwable e) {
+			error = e;
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+		}
+	}
+	
+	/**
+	 * Counts calls that overlap another one, which Observers must never get.
+	 */
+	private static class SerialObserver<T> extends RecordingObserver<T> {
+
+		final AtomicInteger inFlight = new AtomicInteger();
+		volatile int overlaps;
+
+		@Override
+		public void onNext(final T value) {
+			if (inFlight.incrementAndGet() > 1) {
+				overlaps++;
+			}
+			super.onNext(value);
+			Thread.yield(); // Widens the window for another call to come in
+			inFlight.decrementAndGet();
+		}
+	}
+	
+	private static class IntegerSerializer implements Serializer<Integer> {
+
+		@Override
+		public byte[] serialize(final Integer item) {
+			return ByteBuffer.allocate(4).putInt(item).array();
+		}
+
+		@Override
+		public Integer deserialize(final byte[] bytes) {
+			return ByteBuffer.wrap(bytes).getInt();
+		}
+	}
+	
+	private static class FakeFrameClock implements FrameClock {
+
+		final List<Runnable> callbacks = new ArrayList<>();
+		boolean onFrameThread;
+
+		@Override
+		public boolean isFrameThread() {
+			return onFrameThread;
+		}
+
 		@Override
-		public Lifecycle getLifecycle() {
-			return lifecycle;
+		public void postFrameCallback(final Runnable callback) {
+			callbacks.add(callback);
 		}
 
-		public void handleLifecycleEvent(final Lifecycle.Event event) {
-			lifecycle.handleLifecycleEvent(event);
+		void doFrame() {
+			List<Runnable> frameCallbacks = new ArrayList<>(callbacks);
+			callbacks.clear();
+			onFrameThread = true;
+			for (Runnable callback : frameCallbacks) {
+				callback.run();
+			}
+			onFrameThread = false;
 		}
 	}
-}
\ No newline at end of file
+}
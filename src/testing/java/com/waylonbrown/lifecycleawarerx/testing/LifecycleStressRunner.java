@@ -0,0 +1,641 @@
+package com.waylonbrown.lifecycleawarerx.testing;
+
+import android.arch.lifecycle.Lifecycle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.waylonbrown.lifecycleawarerx.BindOptions;
+import com.waylonbrown.lifecycleawarerx.DestroyMode;
+import com.waylonbrown.lifecycleawarerx.LeakDetector;
+import com.waylonbrown.lifecycleawarerx.LifecycleBinder;
+import com.waylonbrown.lifecycleawarerx.OwnerBinder;
+import com.waylonbrown.lifecycleawarerx.SubscriptionMode;
+import com.waylonbrown.lifecycleawarerx.buffer.BufferStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+
+/**
+ * Drives LifecycleOwners through thousands of random STOP/START/DESTROY transitions while items are emitted to their
+ * bound streams from other threads, and fails with an {@link AssertionError} as soon as any of these doesn't hold:
+ * <ul>
+ *     <li>No observer is ever called from two threads at once.</li>
+ *     <li>Nothing is delivered before the LifecycleOwner is first STARTED, or while it's below the state a stream is
+ *     paused below.</li>
+ *     <li>Nothing is delivered once the LifecycleOwner is destroyed.</li>
+ *     <li>Every item emitted while a stream's upstream is subscribed to is delivered once the LifecycleOwner is active,
+ *     unless its {@link BufferStrategy} reports it dropped or expired. Streams bound with a key selector are allowed
+ *     to lose the items they conflate.</li>
+ *     <li>Once the LifecycleOwner has settled in RESUMED, every stream has subscribed to its upstream and isn't paused,
+ *     so an item emitted then is delivered right away, no matter which thread it was bound on.</li>
+ *     <li>Nothing of a stream is still observing the Lifecycle once the LifecycleOwner is destroyed, or still reachable
+ *     once the run is over, see {@link LeakDetector}.</li>
+ * </ul>
+ *
+ * Every stream is bound both with {@link LifecycleBinder} and with an {@link OwnerBinder}, each from either the main
+ * thread or an emitter thread. The emitter threads take turns with the main thread one step at a time, in an order
+ * picked from the seed, so a failing run is repeated exactly by running again with the seed in its error. What's handed
+ * off to the main thread runs as part of those steps, through a {@link TestMainThread} on virtual time.
+ *
+ * Taking turns never has two threads in the library at once though, so once its steps are up every LifecycleOwner
+ * that's still alive is also run freely: each emitter thread emits a burst of items to its share of the streams while
+ * the main thread keeps stopping and starting the LifecycleOwner without waiting for them. That's what catches items
+ * delivered on an emitter thread racing with those delivered on the main thread as it resumes, which is why it checks
+ * that no observer is called from two threads at once and that nothing is lost or reordered. Halfway through, each
+ * emitter thread also binds another stream for every bind option, so binding races with lifecycle callbacks and with
+ * the registrations it posts to the main thread, which is what a stream left paused or never subscribed to once the
+ * LifecycleOwner settles shows up from. Whether an item should
+ * have been delivered while paused isn't checked then, since an item already on its way when the LifecycleOwner is
+ * stopped on another thread can still be delivered. Which items race differs from one run to the next, so the seed
+ * only repeats the steps.
+ *
+ * The thread calling {@link #run()} is the main thread for the whole run. The runner sets its own main thread and leak
+ * detector with LifecycleBinder while it runs and unsets the leak detector once done, so set your main thread again
+ * afterwards. Bind options are used as given, except for the drop and expiry listeners of their buffer strategies,
+ * which the runner sets to count what's dropped.
+ */
+public final class LifecycleStressRunner {
+
+    private static final int DEFAULT_OWNERS = 100;
+    private static final int DEFAULT_STEPS_PER_OWNER = 200;
+    private static final int DEFAULT_EMITTERS = 2;
+    /**
+     * Out of 100 steps, what each step does.
+     */
+    private static final int EMIT_PERCENT = 60;
+    private static final int RUN_POSTED_PERCENT = 15;
+    /**
+     * Out of 100 transitions, how many destroy the LifecycleOwner before its steps are up.
+     */
+    private static final int DESTROY_PERCENT = 1;
+    /**
+     * Items emitted to each stream while running freely.
+     */
+    private static final int FREE_RUN_ITEMS = 100;
+    private static final Lifecycle.State[] TRANSITION_STATES = {
+        Lifecycle.State.CREATED, Lifecycle.State.STARTED, Lifecycle.State.RESUMED
+    };
+
+    /**
+     * What a run did, for checking it really covered what it was meant to.
+     */
+    public static final class Report {
+
+        private int owners;
+        private int transitions;
+        private long itemsEmitted;
+        private long itemsDelivered;
+        private long itemsDropped;
+
+        Report() {
+        }
+
+        public int getOwners() {
+            return owners;
+        }
+
+        public int getTransitions() {
+            return transitions;
+        }
+
+        /**
+         * @return items emitted while the upstream of their stream was subscribed to and before its LifecycleOwner was
+         *      destroyed.
+         */
+        public long getItemsEmitted() {
+            return itemsEmitted;
+        }
+
+        public long getItemsDelivered() {
+            return itemsDelivered;
+        }
+
+        /**
+         * @return items reported dropped or expired by buffer strategies.
+         */
+        public long getItemsDropped() {
+            return itemsDropped;
+        }
+
+        @Override
+        public String toString() {
+            return owners + " owners, " + transitions + " transitions, " + itemsEmitted + " items emitted, "
+                + itemsDelivered + " delivered, " + itemsDropped + " dropped";
+        }
+    }
+
+    private final long seed;
+    private final int owners;
+    private final int stepsPerOwner;
+    private final int emitters;
+    @NonNull private final List<BindOptions> bindOptions;
+
+    /**
+     * @param seed picks every step of the run, so the same seed always runs the same steps.
+     */
+    public LifecycleStressRunner(long seed) {
+        this(seed, DEFAULT_OWNERS, DEFAULT_STEPS_PER_OWNER, DEFAULT_EMITTERS, defaultBindOptions());
+    }
+
+    private LifecycleStressRunner(long seed, int owners, int stepsPerOwner, int emitters,
+                                  @NonNull List<BindOptions> bindOptions) {
+        if (owners <= 0 || stepsPerOwner <= 0 || emitters <= 0) {
+            throw new IllegalArgumentException("owners, stepsPerOwner and emitters must be positive but were " + owners
+                + ", " + stepsPerOwner + " and " + emitters);
+        }
+        if (bindOptions.isEmpty()) {
+            throw new IllegalArgumentException("At least one BindOptions is needed");
+        }
+        this.seed = seed;
+        this.owners = owners;
+        this.stepsPerOwner = stepsPerOwner;
+        this.emitters = emitters;
+        this.bindOptions = bindOptions;
+    }
+
+    /**
+     * @return a copy of this runner that runs that many LifecycleOwners one after the other. 100 by default.
+     */
+    @NonNull
+    public LifecycleStressRunner withOwners(int owners) {
+        return new LifecycleStressRunner(seed, owners, stepsPerOwner, emitters, bindOptions);
+    }
+
+    /**
+     * @return a copy of this runner that takes up to that many steps with each LifecycleOwner before destroying it.
+     *      200 by default.
+     */
+    @NonNull
+    public LifecycleStressRunner withStepsPerOwner(int stepsPerOwner) {
+        return new LifecycleStressRunner(seed, owners, stepsPerOwner, emitters, bindOptions);
+    }
+
+    /**
+     * @return a copy of this runner that emits from that many threads. 2 by default.
+     */
+    @NonNull
+    public LifecycleStressRunner withEmitters(int emitters) {
+        return new LifecycleStressRunner(seed, owners, stepsPerOwner, emitters, bindOptions);
+    }
+
+    /**
+     * @return a copy of this runner that binds one stream for each of the given options to every LifecycleOwner,
+     *      instead of the default mix of destroy modes, buffer strategies, pausing and subscription modes.
+     */
+    @NonNull
+    public LifecycleStressRunner withBindOptions(@NonNull BindOptions... bindOptions) {
+        return new LifecycleStressRunner(seed, owners, stepsPerOwner, emitters,
+            Collections.unmodifiableList(new ArrayList<>(Arrays.asList(bindOptions))));
+    }
+
+    /**
+     * Blocks until every LifecycleOwner has been run, which takes a few seconds with the defaults.
+     *
+     * @throws AssertionError on the first step after which an invariant doesn't hold, with the seed to repeat it.
+     */
+    @NonNull
+    public Report run() {
+        TestScheduler scheduler = new TestScheduler();
+        LifecycleBinder.setMainThread(new TestMainThread(scheduler));
+        LeakDetector leakDetector = new LeakDetector();
+        LifecycleBinder.setLeakDetector(leakDetector);
+        ExecutorService[] emitterThreads = new ExecutorService[emitters];
+        for (int i = 0; i < emitters; i++) {
+            emitterThreads[i] = Executors.newSingleThreadExecutor();
+        }
+        Random random = new Random(seed);
+        Report report = new Report();
+        try {
+            for (int i = 0; i < owners; i++) {
+                new OwnerRun(i, random, scheduler, emitterThreads, report).run();
+            }
+        } finally {
+            LifecycleBinder.setLeakDetector(null);
+            for (ExecutorService emitterThread : emitterThreads) {
+                emitterThread.shutdownNow();
+            }
+        }
+        List<LeakDetector.Leak> leaks = leakDetector.findLeaks();
+        if (!leaks.isEmpty()) {
+            throw new AssertionError("Seed " + seed + ": still reachable after the run " + leaks);
+        }
+        return report;
+    }
+
+    @NonNull
+    private static List<BindOptions> defaultBindOptions() {
+        BindOptions defaults = BindOptions.defaults();
+        return Collections.unmodifiableList(Arrays.asList(
+            defaults,
+            defaults.withDestroyMode(DestroyMode.DISPOSE),
+            defaults.withSubscriptionMode(SubscriptionMode.PREFETCH_ON_CREATED),
+            defaults.withBufferStrategy(BufferStrategy.drainAndRelease()),
+            defaults.withBufferStrategy(BufferStrategy.lastItems(4)).withPausing(Lifecycle.State.STARTED),
+            defaults.withBufferStrategy(BufferStrategy.drainAndRelease())
+                .withPausing(Lifecycle.State.RESUMED)
+                .withDestroyMode(DestroyMode.DISPOSE)));
+    }
+
+    /**
+     * One LifecycleOwner from being created to being destroyed, with everything bound to it. Nothing of it outlives
+     * {@link #run()}, so anything the leak detector finds afterwards is held on to by the library.
+     */
+    private final class OwnerRun {
+
+        private final int index;
+        @NonNull private final Random random;
+        @NonNull private final TestScheduler scheduler;
+        @NonNull private final ExecutorService[] emitterThreads;
+        @NonNull private final Report report;
+        @NonNull private final TestLifecycleOwner lifecycleOwner = new TestLifecycleOwner();
+        @NonNull private final List<StressedStream> streams = new ArrayList<>();
+        // Only written on the main thread, and read by emitter threads only once a step has handed off to them
+        volatile boolean started;
+        volatile boolean destroyed;
+        volatile boolean runningFreely;
+        private int step;
+
+        OwnerRun(int index, @NonNull Random random, @NonNull TestScheduler scheduler,
+                 @NonNull ExecutorService[] emitterThreads, @NonNull Report report) {
+            this.index = index;
+            this.random = random;
+            this.scheduler = scheduler;
+            this.emitterThreads = emitterThreads;
+            this.report = report;
+        }
+
+        void run() {
+            if (random.nextBoolean()) {
+                lifecycleOwner.create();
+            }
+            OwnerBinder binder = LifecycleBinder.forOwner(lifecycleOwner);
+            for (BindOptions options : bindOptions) {
+                bind(new StressedStream(this, "LifecycleBinder with " + describe(options), options), null);
+                bind(new StressedStream(this, "OwnerBinder with " + describe(options), options), binder);
+            }
+            for (step = 0; step < stepsPerOwner && !destroyed; step++) {
+                int action = random.nextInt(100);
+                if (action < EMIT_PERCENT) {
+                    emit(streams.get(random.nextInt(streams.size())));
+                } else if (action < EMIT_PERCENT + RUN_POSTED_PERCENT) {
+                    scheduler.triggerActions();
+                } else if (random.nextInt(100) < DESTROY_PERCENT) {
+                    destroy();
+                } else {
+                    moveTo(TRANSITION_STATES[random.nextInt(TRANSITION_STATES.length)]);
+                }
+                check();
+            }
+            if (!destroyed) {
+                runFreely(binder);
+                // Anything still held is delivered once active
+                moveTo(Lifecycle.State.RESUMED);
+                scheduler.triggerActions();
+                check();
+                for (StressedStream stream : streams) {
+                    stream.checkNothingLost();
+                }
+                check();
+                // Nothing is left paused or waiting to subscribe, so what's emitted now is delivered right away
+                for (StressedStream stream : streams) {
+                    emit(stream);
+                }
+                scheduler.triggerActions();
+                for (StressedStream stream : streams) {
+                    stream.checkLatestDelivered();
+                }
+                check();
+                destroy();
+            }
+            scheduler.triggerActions();
+            for (StressedStream stream : streams) {
+                emit(stream);
+            }
+            check();
+            if (lifecycleOwner.getLifecycle().getObserverCount() != 0) {
+                fail(lifecycleOwner.getLifecycle().getObserverCount() + " Lifecycle observers left after destroy");
+            }
+            report.owners++;
+            for (StressedStream stream : streams) {
+                report.itemsEmitted += stream.emitted.size();
+                report.itemsDelivered += stream.delivered.size();
+                report.itemsDropped += stream.dropped + stream.expired;
+            }
+        }
+
+        private void bind(@NonNull final StressedStream stream, @Nullable final OwnerBinder binder) {
+            streams.add(stream);
+            Runnable bind = new Runnable() {
+                @Override
+                public void run() {
+                    bindNow(stream, binder);
+                }
+            };
+            if (random.nextBoolean()) {
+                bind.run();
+            } else {
+                onEmitterThread(bind);
+            }
+        }
+
+        private void bindNow(@NonNull StressedStream stream, @Nullable OwnerBinder binder) {
+            stream.upstream.compose(binder != null
+                ? binder.bind(stream, stream.bindOptions)
+                : LifecycleBinder.bind(lifecycleOwner, stream, stream.bindOptions));
+        }
+
+        /**
+         * Has the emitter threads each emit to their share of the streams all at once, while the main thread keeps
+         * moving the LifecycleOwner between states until they're done. Each stream is still only emitted to from one
+         * thread, as the Observable contract requires. Halfway through, each emitter thread also binds its share of new
+         * streams, which nothing is emitted to until the LifecycleOwner has settled, since whether their upstream is
+         * subscribed to yet isn't known while it's running freely.
+         */
+        private void runFreely(@NonNull final OwnerBinder binder) {
+            // Every upstream is subscribed to from here on, so what's emitted is known to be delivered or dropped
+            moveTo(Lifecycle.State.STARTED);
+            scheduler.triggerActions();
+            check();
+            runningFreely = true;
+            int boundStreams = streams.size();
+            List<Future<?>> bursts = new ArrayList<>(emitterThreads.length);
+            for (int i = 0; i < emitterThreads.length; i++) {
+                final List<StressedStream> share = new ArrayList<>();
+                for (int j = i; j < boundStreams; j += emitterThreads.length) {
+                    share.add(streams.get(j));
+                }
+                // Alternating between binders, so both are bound from every emitter thread across the options
+                final List<StressedStream> unbound = new ArrayList<>();
+                for (BindOptions options : bindOptions) {
+                    unbound.add(new StressedStream(this, (unbound.size() % 2 == 0 ? "LifecycleBinder" : "OwnerBinder")
+                        + " bound while running freely with " + describe(options), options));
+                }
+                streams.addAll(unbound);
+                bursts.add(emitterThreads[i].submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int k = 0; k < FREE_RUN_ITEMS; k++) {
+                            if (k == FREE_RUN_ITEMS / 2) {
+                                for (int j = 0; j < unbound.size(); j++) {
+                                    bindNow(unbound.get(j), j % 2 == 0 ? null : binder);
+                                }
+                            }
+                            for (StressedStream stream : share) {
+                                emitNow(stream, stream.nextItem++);
+                            }
+                        }
+                    }
+                }));
+            }
+            while (!isDone(bursts)) {
+                moveTo(TRANSITION_STATES[random.nextInt(TRANSITION_STATES.length)]);
+                scheduler.triggerActions();
+                check();
+            }
+            for (Future<?> burst : bursts) {
+                await(burst);
+            }
+            runningFreely = false;
+            check();
+        }
+
+        private void emit(@NonNull final StressedStream stream) {
+            final Integer item = stream.nextItem++;
+            onEmitterThread(new Runnable() {
+                @Override
+                public void run() {
+                    emitNow(stream, item);
+                }
+            });
+        }
+
+        /**
+         * Only called on an emitter thread.
+         */
+        private void emitNow(@NonNull StressedStream stream, @NonNull Integer item) {
+            if (stream.upstream.hasObservers() && !destroyed) {
+                synchronized (stream) {
+                    stream.emitted.add(item);
+                }
+            }
+            stream.upstream.onNext(item);
+        }
+
+        private void moveTo(@NonNull Lifecycle.State state) {
+            if (state.isAtLeast(Lifecycle.State.STARTED)) {
+                // Set first, since items held until now are delivered while the LifecycleOwner is being started
+                started = true;
+            }
+            if (lifecycleOwner.getLifecycle().getCurrentState() != state) {
+                report.transitions++;
+                lifecycleOwner.moveTo(state);
+            }
+        }
+
+        private void destroy() {
+            destroyed = true;
+            report.transitions++;
+            lifecycleOwner.destroy();
+        }
+
+        private void onEmitterThread(@NonNull Runnable task) {
+            await(emitterThreads[random.nextInt(emitterThreads.length)].submit(task));
+        }
+
+        private boolean isDone(@NonNull List<Future<?>> tasks) {
+            for (Future<?> task : tasks) {
+                if (!task.isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void await(@NonNull Future<?> task) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("interrupted");
+            } catch (ExecutionException e) {
+                AssertionError error = new AssertionError(describeStep() + "emitter thread threw " + e.getCause());
+                error.initCause(e.getCause());
+                throw error;
+            }
+        }
+
+        private void check() {
+            for (StressedStream stream : streams) {
+                String violation = stream.violation;
+                if (violation != null) {
+                    fail(stream.name + " " + violation);
+                }
+            }
+        }
+
+        private void fail(@NonNull String message) {
+            throw new AssertionError(describeStep() + message);
+        }
+
+        @NonNull
+        private String describeStep() {
+            return "Seed " + seed + ", owner " + index + ", step " + step + " ("
+                + lifecycleOwner.getLifecycle().getCurrentState() + "): ";
+        }
+    }
+
+    @NonNull
+    private static String describe(@NonNull BindOptions options) {
+        BufferStrategy bufferStrategy = options.getBufferStrategy();
+        return options.getDestroyMode()
+            + (bufferStrategy != null ? ", buffer of " + bufferStrategy.getCapacity() : "")
+            + (options.getPausedBelow() != null ? ", paused below " + options.getPausedBelow() : "")
+            + (options.getSubscriptionMode() != null ? ", " + options.getSubscriptionMode() : "");
+    }
+
+    /**
+     * A hot upstream along with the observer bound to it, which checks every item as it's delivered. Violations are
+     * recorded rather than thrown, since they happen on whichever thread delivers, and picked up by the main thread
+     * after each step.
+     */
+    private static final class StressedStream implements Observer<Integer>, BufferStrategy.DropListener,
+            BufferStrategy.ExpiryListener {
+
+        @NonNull final OwnerRun ownerRun;
+        @NonNull final String name;
+        @NonNull final BindOptions bindOptions;
+        @NonNull final PublishSubject<Integer> upstream = PublishSubject.create();
+        // Only used on the main thread, or the emitter thread it's handed to while running freely
+        int nextItem;
+        // Guarded by this
+        @NonNull final List<Integer> emitted = new ArrayList<>();
+        @NonNull final List<Integer> delivered = new ArrayList<>();
+        volatile long dropped;
+        volatile long expired;
+        volatile boolean failed;
+        @Nullable volatile String violation;
+        /**
+         * How many threads are in onNext() right now, which is never more than one.
+         */
+        @NonNull final AtomicInteger delivering = new AtomicInteger();
+
+        StressedStream(@NonNull OwnerRun ownerRun, @NonNull String name, @NonNull BindOptions bindOptions) {
+            this.ownerRun = ownerRun;
+            this.name = name;
+            BufferStrategy bufferStrategy = bindOptions.getBufferStrategy();
+            this.bindOptions = bufferStrategy == null ? bindOptions
+                : bindOptions.withBufferStrategy(bufferStrategy.withDropListener(this).withExpiryListener(this));
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            if (delivering.getAndIncrement() != 0) {
+                violate("delivered " + item + " while also delivering on another thread");
+            }
+            Lifecycle.State state = ownerRun.lifecycleOwner.getLifecycle().getCurrentState();
+            Lifecycle.State pausedBelow = bindOptions.getPausedBelow();
+            if (ownerRun.destroyed) {
+                violate("delivered " + item + " after destroy");
+            } else if (!ownerRun.started) {
+                violate("delivered " + item + " before STARTED");
+            } else if (pausedBelow != null && !state.isAtLeast(pausedBelow) && !ownerRun.runningFreely) {
+                violate("delivered " + item + " while paused below " + pausedBelow);
+            }
+            synchronized (this) {
+                delivered.add(item);
+            }
+            // Give another thread delivering at the same time the chance to be caught at it
+            Thread.yield();
+            delivering.decrementAndGet();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            failed = true;
+            if (ownerRun.destroyed) {
+                violate("errored after destroy with " + e);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (ownerRun.destroyed && bindOptions.getDestroyMode() != DestroyMode.DISPOSE_AND_COMPLETE) {
+                violate("completed after destroy");
+            }
+        }
+
+        @Override
+        public void onDropped(long droppedCount) {
+            dropped = droppedCount;
+        }
+
+        @Override
+        public void onExpired(long expiredCount) {
+            expired = expiredCount;
+        }
+
+        /**
+         * Only called once everything held should have been delivered.
+         */
+        synchronized void checkNothingLost() {
+            if (failed || bindOptions.getKeySelector() != null) {
+                return;
+            }
+            long dropped = this.dropped + this.expired;
+            if (delivered.size() + dropped != emitted.size() || !isInOrder(delivered, emitted)) {
+                violate("lost items, emitted " + emitted + " but delivered " + delivered + " and dropped " + dropped);
+            }
+        }
+
+        /**
+         * Only called once the LifecycleOwner has settled in RESUMED and the latest item has been emitted.
+         */
+        synchronized void checkLatestDelivered() {
+            if (failed) {
+                return;
+            }
+            Integer latest = nextItem - 1;
+            if (!upstream.hasObservers()) {
+                violate("never subscribed to its upstream once settled in RESUMED");
+            } else if (delivered.isEmpty() || !delivered.get(delivered.size() - 1).equals(latest)) {
+                violate("still holding " + latest + " once settled in RESUMED, as if left paused");
+            }
+        }
+
+        private void violate(@NonNull String violation) {
+            if (this.violation == null) {
+                this.violation = violation;
+            }
+        }
+
+        /**
+         * @return whether every item of the first list is in the second, in the same order.
+         */
+        private static boolean isInOrder(@NonNull List<Integer> items, @NonNull List<Integer> all) {
+            int i = 0;
+            for (Integer item : all) {
+                if (i < items.size() && items.get(i).equals(item)) {
+                    i++;
+                }
+            }
+            return i == items.size();
+        }
+    }
+}
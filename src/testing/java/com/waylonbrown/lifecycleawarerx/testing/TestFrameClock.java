@@ -0,0 +1,83 @@
+package com.waylonbrown.lifecycleawarerx.testing;
+
+import android.support.annotation.NonNull;
+
+import com.waylonbrown.lifecycleawarerx.delivery.FrameClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+/**
+ * {@link FrameClock} running on the virtual time of a {@link TestScheduler}, for testing frame delivery and
+ * {@link com.waylonbrown.lifecycleawarerx.ResumeScheduler} on the JVM. A frame starts at every multiple of the frame
+ * interval that has callbacks waiting, as the scheduler is advanced past it. The thread that created it is the frame
+ * thread, the same as with {@link TestMainThread}.
+ */
+public final class TestFrameClock implements FrameClock {
+
+    @NonNull private final Thread thread = Thread.currentThread();
+    @NonNull private final TestScheduler scheduler;
+    private final long frameIntervalNanos;
+    // Guarded by callbacks
+    @NonNull private final List<Runnable> callbacks = new ArrayList<>();
+    private boolean frameScheduled;
+    @NonNull private final Runnable doFrame = new Runnable() {
+        @Override
+        public void run() {
+            doFrame();
+        }
+    };
+
+    public TestFrameClock(@NonNull TestScheduler scheduler, long frameInterval, @NonNull TimeUnit unit) {
+        if (frameInterval <= 0) {
+            throw new IllegalArgumentException("frameInterval must be positive but was " + frameInterval);
+        }
+        this.scheduler = scheduler;
+        this.frameIntervalNanos = unit.toNanos(frameInterval);
+    }
+
+    @Override
+    public boolean isFrameThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public void postFrameCallback(@NonNull Runnable callback) {
+        synchronized (callbacks) {
+            callbacks.add(callback);
+            if (frameScheduled) {
+                return;
+            }
+            frameScheduled = true;
+        }
+        long now = scheduler.now(TimeUnit.NANOSECONDS);
+        scheduler.scheduleDirect(doFrame, frameIntervalNanos - now % frameIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return how many callbacks are waiting for the next frame.
+     */
+    public int getCallbackCount() {
+        synchronized (callbacks) {
+            return callbacks.size();
+        }
+    }
+
+    /**
+     * Callbacks posted during a frame wait for the next one, as they do with a Choreographer.
+     */
+    private void doFrame() {
+        Runnable[] frameCallbacks;
+        synchronized (callbacks) {
+            frameCallbacks = callbacks.toArray(new Runnable[callbacks.size()]);
+            callbacks.clear();
+            frameScheduled = false;
+        }
+        for (Runnable callback : frameCallbacks) {
+            callback.run();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.waylonbrown.lifecycleawarerx.testing;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
+import android.arch.lifecycle.LifecycleRegistry;
+import android.support.annotation.NonNull;
+
+import com.waylonbrown.lifecycleawarerx.ConfigurationChangeAware;
+
+/**
+ * {@link LifecycleOwner} for tests on the JVM, backed by the same {@link LifecycleRegistry} used by Activities and
+ * Fragments. Move it with {@link #moveTo} or the methods named after Activity callbacks, which go through every state
+ * in between one event at a time as an Activity would, or send single events with {@link #handleLifecycleEvent}.
+ *
+ * Only move it from the thread set as the main thread, see {@link TestMainThread}.
+ */
+public final class TestLifecycleOwner implements LifecycleOwner, ConfigurationChangeAware {
+
+    @NonNull private final LifecycleRegistry lifecycle;
+    private volatile boolean changingConfigurations;
+
+    public TestLifecycleOwner() {
+        this.lifecycle = new LifecycleRegistry(this);
+    }
+
+    @Override
+    public LifecycleRegistry getLifecycle() {
+        return lifecycle;
+    }
+
+    public void handleLifecycleEvent(@NonNull Lifecycle.Event event) {
+        lifecycle.handleLifecycleEvent(event);
+    }
+
+    @NonNull
+    public TestLifecycleOwner create() {
+        return moveTo(Lifecycle.State.CREATED);
+    }
+
+    @NonNull
+    public TestLifecycleOwner start() {
+        return moveTo(Lifecycle.State.STARTED);
+    }
+
+    @NonNull
+    public TestLifecycleOwner resume() {
+        return moveTo(Lifecycle.State.RESUMED);
+    }
+
+    @NonNull
+    public TestLifecycleOwner pause() {
+        return moveTo(Lifecycle.State.STARTED);
+    }
+
+    @NonNull
+    public TestLifecycleOwner stop() {
+        return moveTo(Lifecycle.State.CREATED);
+    }
+
+    @NonNull
+    public TestLifecycleOwner destroy() {
+        return moveTo(Lifecycle.State.DESTROYED);
+    }
+
+    /**
+     * Sends every event needed to get from the current state to the given one, in order, always starting with ON_CREATE
+     * as an Activity does.
+     *
+     * @throws IllegalStateException if it's already destroyed, or asked to go back to INITIALIZED.
+     */
+    @NonNull
+    public TestLifecycleOwner moveTo(@NonNull Lifecycle.State state) {
+        Lifecycle.State current;
+        while ((current = lifecycle.getCurrentState()) != state) {
+            if (current == Lifecycle.State.DESTROYED || state == Lifecycle.State.INITIALIZED) {
+                throw new IllegalStateException("Can't move from " + current + " to " + state);
+            }
+            // Even when destroyed right away, since Lifecycle observers that are still INITIALIZED get no ON_DESTROY
+            boolean up = current == Lifecycle.State.INITIALIZED || state.compareTo(current) > 0;
+            handleLifecycleEvent(up ? upFrom(current) : downFrom(current));
+        }
+        return this;
+    }
+
+    /**
+     * Whether the next destroy is only to be recreated, see
+     * {@link com.waylonbrown.lifecycleawarerx.LifecycleBinder#bindRetained}.
+     */
+    public void setChangingConfigurations(boolean changingConfigurations) {
+        this.changingConfigurations = changingConfigurations;
+    }
+
+    @Override
+    public boolean isChangingConfigurations() {
+        return changingConfigurations;
+    }
+
+    @NonNull
+    private static Lifecycle.Event upFrom(@NonNull Lifecycle.State state) {
+        switch (state) {
+            case INITIALIZED:
+                return Lifecycle.Event.ON_CREATE;
+            case CREATED:
+                return Lifecycle.Event.ON_START;
+            default:
+                return Lifecycle.Event.ON_RESUME;
+        }
+    }
+
+    @NonNull
+    private static Lifecycle.Event downFrom(@NonNull Lifecycle.State state) {
+        switch (state) {
+            case RESUMED:
+                return Lifecycle.Event.ON_PAUSE;
+            case STARTED:
+                return Lifecycle.Event.ON_STOP;
+            default:
+                return Lifecycle.Event.ON_DESTROY;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.waylonbrown.lifecycleawarerx.testing;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.waylonbrown.lifecycleawarerx.LifecycleBinder;
+import com.waylonbrown.lifecycleawarerx.MainThread;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.schedulers.TestScheduler;
+
+/**
+ * {@link MainThread} for tests on the JVM, treating the thread that created it as the main thread. Set it with
+ * {@link LifecycleBinder#setMainThread(MainThread)} before binding anything.
+ *
+ * Tasks posted to it wait until {@link #runPosted()} is called. When given a {@link TestScheduler}, they're also run as
+ * that scheduler triggers its actions, so advancing virtual time moves both the streams under test and what they hand
+ * off to the main thread, in the order it happened. Only trigger the scheduler from the main thread.
+ */
+public final class TestMainThread implements MainThread {
+
+    @NonNull private final Thread thread = Thread.currentThread();
+    @Nullable private final TestScheduler scheduler;
+    @NonNull private final List<Runnable> posted = new ArrayList<>();
+    @NonNull private final Runnable runPosted = new Runnable() {
+        @Override
+        public void run() {
+            runPosted();
+        }
+    };
+
+    public TestMainThread() {
+        this(null);
+    }
+
+    public TestMainThread(@Nullable TestScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public void post(@NonNull Runnable task) {
+        synchronized (posted) {
+            posted.add(task);
+        }
+        if (scheduler != null) {
+            scheduler.scheduleDirect(runPosted);
+        }
+    }
+
+    /**
+     * @return how many tasks are waiting to be run.
+     */
+    public int getPostedCount() {
+        synchronized (posted) {
+            return posted.size();
+        }
+    }
+
+    /**
+     * Runs every task posted so far on the calling thread, in the order they were posted. Tasks they post in turn wait
+     * for the next call.
+     */
+    public void runPosted() {
+        Runnable[] tasks;
+        synchronized (posted) {
+            tasks = posted.toArray(new Runnable[posted.size()]);
+            posted.clear();
+        }
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+}